@@ -0,0 +1,53 @@
+package generation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Distance store that keeps the distance values in a two dimensional
+ * array {@code dists[width][height]}.
+ * This is the original layout of the Distance class.
+ * Next hops are kept in a flat byte array.
+ * The array is shared, not copied, see {@link Distance#setAllDistanceValues(int[][])}.
+ */
+class ArrayDistanceStore implements DistanceStore {
+	private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+	private final int[][] dists; // width x height array of distances
+	private final byte[] nextHops; // width*height next hops, row by row
+
+	/**
+	 * Constructor that directly uses the given reference.
+	 * @param distances is a non-null matrix of dimension width x height
+	 */
+	ArrayDistanceStore(int[][] distances) {
+		dists = distances;
+		nextHops = new byte[distances.length * distances[0].length];
+	}
+	/**
+	 * Gets the underlying array.
+	 * @return array with distance values
+	 */
+	int[][] getArray() {
+		return dists;
+	}
+	@Override
+	public int get(int x, int y) {
+		return dists[x][y];
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		dists[x][y] = value;
+	}
+	@Override
+	public boolean compareAndSet(int x, int y, int expected, int value) {
+		return INT_ARRAY.compareAndSet(dists[x], y, expected, value);
+	}
+	@Override
+	public int getNextHop(int x, int y) {
+		return nextHops[y*dists.length+x];
+	}
+	@Override
+	public void setNextHop(int x, int y, int hop) {
+		nextHops[y*dists.length+x] = (byte) hop;
+	}
+}
@@ -1,6 +1,7 @@
 package generation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -32,6 +33,7 @@ public class BSPBuilder {
 	// only usage is in updateProgressBar to estimate progress made in the BSP tree construction
 	int partiters = 0 ; // relocated from MazeBuilder attribute partiters here. 
 	private final Order order ; 		// current order
+	private final ProgressPublisher progress ; // forwards progress updates to the order at a bounded rate
 	/**
 	 * Constructor
 	 * @param order provides the spec for the maze to be generated, will receive the result
@@ -44,6 +46,7 @@ public class BSPBuilder {
 	 */
 	public BSPBuilder(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters) {
 		this.order = order ;
+		this.progress = (null == order) ? null : new ProgressPublisher(order) ;
 		this.dists = dists ;
 		this.floorplan = floorplan ;
 		this.width = width ;
@@ -181,13 +184,11 @@ public class BSPBuilder {
 				LOGGER.warning("Progress estimate exceeds 100, set to 100 to mitigate issue");
 				percentage = 100;
 			}
-			//  update progress bar
-			order.updateProgress(percentage) ;
-			// give main thread a chance to process keyboard events
-			if (percentage < 100) {
-				Thread.sleep(10);
-			}
+			//  update progress bar, at a bounded rate to keep redraws cheap
+			progress.publish(percentage) ;
 		}
+		// stop if the user cancelled the maze generation
+		MazeBuilder.checkInterrupted() ;
 	}
 
 	/**
@@ -230,7 +231,10 @@ public class BSPBuilder {
 		// TODO: check why this is done. 
 		// It creates a top wallboard on position (0,0). 
 		// This may even corrupt a maze and block its exit!
-		floorplan.addWallboard(new Wallboard(0, 0, CardinalDirection.North), false);
+		Wallboard topLeft = new Wallboard(0, 0, CardinalDirection.North);
+		floorplan.addWallboard(topLeft, false);
+		// keep distances consistent with the floorplan
+		dists.updateDistances(floorplan, Collections.singletonList(topLeft));
 		
 		// Start the recursive BSP calculation for the list of polygons
 		// and return the root node of the tree
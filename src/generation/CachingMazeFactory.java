@@ -0,0 +1,385 @@
+package generation;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import gui.Constants;
+
+/**
+ * A maze factory that keeps delivered mazes in a cache in front of another factory.
+ * A maze is fully determined by skill level, builder algorithm, perfect flag and seed
+ * of its order, so an order for the same values is served from the cache
+ * and delivered right away without building the maze again.
+ *
+ * The cache has two tiers:
+ * 1. an in-memory tier that evicts the least recently used mazes once the
+ * estimated size of all mazes exceeds a given number of bytes, see {@link #estimateBytes(Maze)},
+ * 2. an optional tier of maze files in a directory, in the format of
+ * a given {@link MazePersistence}, that survives evictions
+ * and restarts. Mazes are written to it when they are built.
+ *
+ * The cache keeps immutable snapshots of floorplans, distances and BSP trees of its own.
+ * Each delivery from the cache gets a copy of the distances and of the BSP tree,
+ * as a game marks the walls it has seen in the tree, while the immutable floorplan
+ * is shared between orders. The cached mazes are never changed.
+ * Mazes outside of the heap are not cached.
+ * The class is thread-safe, the other factory delivers on its own thread.
+ */
+public class CachingMazeFactory implements Factory {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(CachingMazeFactory.class.getName());
+	// estimated sizes in bytes for the parts of a maze
+	private static final int CELL_BYTES = 8; // floorplan and distance of a cell
+	private static final int NODE_BYTES = 64; // node of the BSP tree
+	private static final int WALL_BYTES = 80; // wall in a leaf of the BSP tree
+	private static final int ENTRY_BYTES = 128; // container, key and list entry
+	/**
+	 * Version of the mazes in the file tier, part of the file names.
+	 * It must be increased whenever the file format changes or a change to a builder
+	 * or to the random number streams changes which maze an order gives,
+	 * such that files from before the change are no longer served.
+	 */
+	static final int VERSION = 2;
+
+	private final Factory factory; // builds mazes that are not in the cache
+	private final long capacity; // bound for the estimated bytes of the in-memory tier
+	private final File directory; // directory of the file tier, null if there is none
+	private final MazePersistence persistence; // reads and writes the files of the file tier
+	// in-memory tier in the order of access, least recently used first
+	private final LinkedHashMap<Key, Maze> mazes = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Key, Long> sizes = new HashMap<>(); // estimated bytes per maze in memory
+	private long size; // estimated bytes of the in-memory tier
+	private long hits; // orders served from memory
+	private long fileHits; // orders served from files
+	private long misses; // orders handed to the other factory
+	private long evictions; // mazes evicted from memory
+
+	//////////////////////// Constructor ////////////////////////////////////////
+	/**
+	 * Constructor for a cache in memory only in front of a MazeFactory
+	 * @param capacity bound for the estimated bytes of mazes in memory, {@code 0 <= capacity}
+	 */
+	public CachingMazeFactory(long capacity) {
+		this(new MazeFactory(), capacity, null, null);
+	}
+	/**
+	 * Constructor
+	 * @param factory the factory to build mazes that are not in the cache, not null
+	 * @param capacity bound for the estimated bytes of mazes in memory, {@code 0 <= capacity}
+	 * @param directory directory for maze files, null for a cache in memory only
+	 * @param persistence reads and writes the maze files, not null if there is a directory
+	 */
+	public CachingMazeFactory(Factory factory, long capacity, File directory, MazePersistence persistence) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Unsupported capacity: " + capacity);
+		if (null != directory && null == persistence)
+			throw new IllegalArgumentException("Missing persistence for maze files in " + directory);
+		if (null != directory && !directory.isDirectory() && !directory.mkdirs())
+			throw new IllegalArgumentException("Can not create directory for maze files: " + directory);
+		this.factory = factory;
+		this.capacity = capacity;
+		this.directory = directory;
+		this.persistence = persistence;
+	}
+
+	//////////////////////// Factory interface //////////////////////////////////
+	@Override
+	public boolean order(Order order) {
+		final Key key = new Key(order);
+		final Maze maze = lookup(key);
+		if (null != maze) {
+			order.updateProgress(100);
+			order.deliver(share(maze));
+			return true;
+		}
+		final boolean accepted = factory.order(new Recording(order, key));
+		if (accepted) {
+			synchronized (this) {
+				misses++;
+			}
+		}
+		return accepted;
+	}
+	@Override
+	public void cancel() {
+		factory.cancel();
+	}
+	@Override
+	public void waitTillDelivered() {
+		factory.waitTillDelivered();
+	}
+
+	//////////////////////// statistics /////////////////////////////////////////
+	/**
+	 * Gives the number of orders that were served from memory.
+	 * @return number of hits in memory
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	/**
+	 * Gives the number of orders that were served from maze files.
+	 * @return number of hits in the file tier
+	 */
+	public synchronized long getFileHitCount() {
+		return fileHits;
+	}
+	/**
+	 * Gives the number of orders that were handed to the other factory.
+	 * @return number of misses
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	/**
+	 * Gives the number of mazes that were evicted from memory.
+	 * @return number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+	/**
+	 * Gives the estimated number of bytes of all mazes in memory.
+	 * @return estimated bytes, at most the capacity
+	 */
+	public synchronized long getSizeInBytes() {
+		return size;
+	}
+	/**
+	 * Estimates the number of bytes that a maze takes in memory
+	 * from its dimensions and the size of its BSP tree.
+	 * @param maze the maze
+	 * @return estimated number of bytes
+	 */
+	public static long estimateBytes(Maze maze) {
+		long bytes = ENTRY_BYTES + (long) CELL_BYTES * maze.getWidth() * maze.getHeight();
+		final ArrayDeque<BSPNode> nodes = new ArrayDeque<>();
+		if (null != maze.getRootnode())
+			nodes.push(maze.getRootnode());
+		while (!nodes.isEmpty()) {
+			final BSPNode node = nodes.pop();
+			bytes += NODE_BYTES;
+			if (node instanceof BSPBranch) {
+				final BSPBranch branch = (BSPBranch) node;
+				if (null != branch.getLeftBranch())
+					nodes.push(branch.getLeftBranch());
+				if (null != branch.getRightBranch())
+					nodes.push(branch.getRightBranch());
+			}
+			else if (node instanceof BSPLeaf)
+				bytes += (long) WALL_BYTES * ((BSPLeaf) node).getAllWalls().size();
+		}
+		return bytes;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Looks for a maze in memory and then in the file tier.
+	 * A maze from a file is added to memory.
+	 * @param key the key of the order
+	 * @return the maze, null if it is in neither tier
+	 */
+	private Maze lookup(Key key) {
+		synchronized (this) {
+			final Maze maze = mazes.get(key);
+			if (null != maze) {
+				hits++;
+				return maze;
+			}
+		}
+		final File file = getFile(key);
+		if (null == file || !file.isFile())
+			return null;
+		final Maze maze = persistence.load(file.getPath());
+		if (null == maze || null == maze.getFloorplan() || null == maze.getRootnode()) {
+			LOGGER.warning("Ignoring maze file that can not be read: " + file);
+			return null;
+		}
+		synchronized (this) {
+			fileHits++;
+		}
+		return add(key, maze);
+	}
+	/**
+	 * Adds a maze to memory and evicts least recently used mazes
+	 * until the estimated size is within the capacity again.
+	 * A maze that is larger than the capacity on its own is not added,
+	 * neither is a maze outside of the heap.
+	 * @param key the key of the order
+	 * @param maze the maze
+	 * @return the maze as it is kept in the cache, with an immutable floorplan and distances of its own
+	 */
+	private Maze add(Key key, Maze maze) {
+		if (Floorplan.Layout.MAPPED == maze.getFloorplan().getLayout())
+			return maze;
+		maze = share(maze);
+		final long bytes = estimateBytes(maze);
+		if (bytes > capacity)
+			return maze;
+		synchronized (this) {
+			if (null != mazes.put(key, maze))
+				size -= sizes.get(key);
+			sizes.put(key, bytes);
+			size += bytes;
+			final Iterator<Map.Entry<Key, Maze>> lru = mazes.entrySet().iterator();
+			while (size > capacity) {
+				final Key eldest = lru.next().getKey();
+				lru.remove();
+				size -= sizes.remove(eldest);
+				evictions++;
+			}
+		}
+		return maze;
+	}
+	/**
+	 * Gives a maze that shares the immutable snapshot of the floorplan
+	 * with the given maze but has a copy of its distances and of its BSP tree,
+	 * as both can be changed.
+	 * @param maze the maze with distances kept in an array
+	 * @return the new maze
+	 */
+	private static Maze share(Maze maze) {
+		final int[][] dists = maze.getMazedists().getAllDistanceValues();
+		final int[][] copy = new int[dists.length][];
+		for (int x = 0; x < dists.length; x++) {
+			copy[x] = dists[x].clone();
+		}
+		final int[] start = maze.getStartingPosition();
+		return new MazeContainer(maze.getWidth(), maze.getHeight(), maze.getFloorplan().snapshot(),
+				new Distance(copy), copyTree(maze.getRootnode()), start[0], start[1]);
+	}
+	/**
+	 * Copies a BSP tree with all of its walls.
+	 * @param node the root of the tree, may be null
+	 * @return the root of the copy, null for an empty tree
+	 */
+	private static BSPNode copyTree(BSPNode node) {
+		if (node instanceof BSPBranch) {
+			final BSPBranch branch = (BSPBranch) node;
+			return new BSPBranch(branch.getX(), branch.getY(), branch.getDx(), branch.getDy(),
+					copyTree(branch.getLeftBranch()), copyTree(branch.getRightBranch()));
+		}
+		if (node instanceof BSPLeaf) {
+			final List<Wall> walls = ((BSPLeaf) node).getAllWalls();
+			final List<Wall> copy = new ArrayList<>(walls.size());
+			for (Wall wall : walls) {
+				final Wall w = new Wall(wall.getStartPositionX(), wall.getStartPositionY(),
+						wall.getExtensionX(), wall.getExtensionY(), wall.getDistance(), 0);
+				w.setColor(wall.getColor());
+				w.setPartition(wall.isPartition());
+				w.setSeen(wall.isSeen());
+				copy.add(w);
+			}
+			return new BSPLeaf(copy);
+		}
+		return node;
+	}
+	/**
+	 * Writes a maze to the file tier unless there is a file for it already
+	 * @param key the key of the order
+	 * @param maze the maze
+	 */
+	private void store(Key key, Maze maze) {
+		final File file = getFile(key);
+		// mazes outside of the heap are too large for the XML format
+		if (null == file || file.exists()
+				|| (long) maze.getWidth() * maze.getHeight() >= MazeBuilder.OUT_OF_HEAP_THRESHOLD)
+			return;
+		// write to a temporary file first such that readers never see a partial file
+		final File partial = new File(directory, file.getName() + ".part");
+		persistence.store(partial.getPath(), maze,
+				key.perfect ? 0 : Constants.SKILL_ROOMS[key.skill], Constants.SKILL_PARTCT[key.skill]);
+		if (!partial.renameTo(file)) {
+			LOGGER.warning("Can not store maze file: " + file);
+			partial.delete();
+		}
+	}
+	/**
+	 * Gives the file of the file tier for the given key
+	 * @param key the key of the order
+	 * @return the file, null if there is no file tier
+	 */
+	private File getFile(Key key) {
+		return (null == directory) ? null : new File(directory,
+				"maze-v" + VERSION + "-" + key.skill + "-" + key.builder + "-" + (key.perfect ? "perfect" : "rooms")
+				+ "-" + key.seed + ".xml");
+	}
+	/**
+	 * The values of an order that determine its maze.
+	 */
+	private static final class Key {
+		private final int skill;
+		private final Order.Builder builder;
+		private final boolean perfect;
+		private final int seed;
+
+		Key(Order order) {
+			skill = order.getSkillLevel();
+			builder = order.getBuilder();
+			perfect = order.isPerfect();
+			seed = order.getSeed();
+		}
+		@Override
+		public boolean equals(Object other) {
+			if (this == other)
+				return true;
+			if (!(other instanceof Key))
+				return false;
+			final Key o = (Key) other;
+			return skill == o.skill && builder == o.builder && perfect == o.perfect && seed == o.seed;
+		}
+		@Override
+		public int hashCode() {
+			return ((31*skill + builder.hashCode())*31 + (perfect ? 1 : 0))*31 + seed;
+		}
+	}
+
+	/**
+	 * Forwards all calls to an order and adds the delivered maze to the cache.
+	 */
+	private class Recording implements Order {
+		private final Order order;
+		private final Key key;
+
+		Recording(Order order, Key key) {
+			this.order = order;
+			this.key = key;
+		}
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public int getSeed() {
+			return order.getSeed();
+		}
+		@Override
+		public void deliver(Maze mazeConfig) {
+			// the cached copy is taken before the game can change the delivered maze
+			final Maze cached = add(key, mazeConfig);
+			order.deliver(mazeConfig);
+			store(key, cached);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+		}
+	}
+}
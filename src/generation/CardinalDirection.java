@@ -23,7 +23,48 @@ package generation;
  *
  */
 public enum CardinalDirection {
-	North, East, South, West ;
+	North(0, -1), East(1, 0), South(0, 1), West(-1, 0) ;
+	
+	/**
+	 * All directions in the order of their ordinal values.
+	 * Same content as values() but shared instead of cloned on each call.
+	 * Internal to the package, must not be modified.
+	 */
+	static final CardinalDirection[] VALUES = values();
+	
+	private final int dx; // (dx,dy) pair as in Floorplan.java
+	private final int dy;
+	
+	private CardinalDirection(int dx, int dy) {
+		this.dx = dx;
+		this.dy = dy;
+	}
+	/**
+	 * Gives the x component of the (dx,dy) pair for the current direction.
+	 * Unlike {@link #getDxDyDirection()} no array is allocated.
+	 * @return dx in {-1,0,1}
+	 */
+	public int getDx() {
+		return dx;
+	}
+	/**
+	 * Gives the y component of the (dx,dy) pair for the current direction.
+	 * Unlike {@link #getDxDyDirection()} no array is allocated.
+	 * @return dy in {-1,0,1}
+	 */
+	public int getDy() {
+		return dy;
+	}
+	/**
+	 * Gives the direction with the given ordinal value.
+	 * Unlike values() no array is cloned, so a loop 
+	 * over all ordinals iterates over directions without allocations.
+	 * @param ordinal the ordinal value, {@code 0 <= ordinal < 4}
+	 * @return the matching direction
+	 */
+	public static CardinalDirection fromOrdinal(int ordinal) {
+		return VALUES[ordinal];
+	}
 	/** 
 	 * Gives the direction that results from a 90 degree clockwise rotation
 	 * applied to the current direction. 
@@ -64,10 +105,11 @@ public enum CardinalDirection {
 	}
 	/**
 	 * Gives a random direction. Values are picked with equal probabilities.
+	 * @param random the random number generator to pick the direction with
 	 * @return a random direction, distribution is uniform
 	 */
-	public CardinalDirection randomDirection() {
-		int i = SingleRandom.getRandom().nextIntWithinInterval(0, 3) ;
+	public CardinalDirection randomDirection(SingleRandom random) {
+		int i = random.nextIntWithinInterval(0, 3) ;
 		switch(i) {
 		case 0 : 
 			return CardinalDirection.North ;
@@ -113,7 +155,9 @@ public enum CardinalDirection {
 		}
 	}
 	/**
-	 * Gives the (dx,dy) pair as in Floorplan.java for the current direction
+	 * Gives the (dx,dy) pair as in Floorplan.java for the current direction.
+	 * Each call allocates a new array, 
+	 * use {@link #getDx()} and {@link #getDy()} in frequently executed code.
 	 * @return (dx,dy) pair, dx,dy in {-1,0,1}
 	 */
 	public int[] getDxDyDirection() {
@@ -123,28 +167,7 @@ public enum CardinalDirection {
 		public static int[] DIRS_Y = { 0, 1, 0, -1 };
 	
 		 */
-		int[] result = new int[2] ;
-		switch(this) {
-		case North: // flipped North : 
-			result[0] = 0 ;
-			result[1] = -1 ;
-			break ;
-		case East : 
-			result[0] = 1 ;
-			result[1] = 0 ;
-			break ;
-		case South: // flipped South : 
-			result[0] = 0 ;
-			result[1] = 1 ;
-			break ;
-		case West : 
-			result[0] = -1 ;
-			result[1] = 0 ;
-			break ;
-		default:
-			throw new RuntimeException("Inconsistent enum type") ;
-		}
-		return result ;
+		return new int[] {dx, dy} ;
 	}
 	/**
 	 * Maps the given angle to the closest (dx,dy) pair
@@ -0,0 +1,34 @@
+package generation;
+
+/**
+ * A cell store holds the integer encoding of all cells of a floorplan.
+ * The Floorplan class encapsulates the meaning of the individual bits
+ * (wallboards, borders, visited and room flags), a cell store only
+ * decides on how the values are laid out in memory.
+ *
+ * This separation makes it possible to select a memory layout
+ * for a floorplan without touching the bit operations in Floorplan,
+ * see {@link Floorplan.Layout} for the available options.
+ *
+ * All methods assume that given (x,y) coordinates are
+ * within the legal range {@code [0,width-1],[0,height-1]}
+ * such that no additional parameter checks are performed.
+ * This is reasonable as cell stores are only used internally
+ * to the package by the Floorplan class.
+ */
+interface CellStore {
+	/**
+	 * Gets the value of the cell at position (x,y).
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return value with internal encoding of wallboards and other attributes
+	 */
+	int get(int x, int y);
+	/**
+	 * Sets the value of the cell at position (x,y).
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param value with internal encoding of wallboards and other attributes
+	 */
+	void set(int x, int y, int value);
+}
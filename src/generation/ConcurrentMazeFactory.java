@@ -0,0 +1,222 @@
+package generation;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * A maze factory that builds many orders at the same time
+ * on a fixed pool of worker threads, unlike {@link MazeFactory}
+ * which refuses new orders while it is busy with one.
+ *
+ * Accepted orders wait in a bounded queue for a worker.
+ * The factory applies backpressure if the queue is full:
+ * {@link #submit(Order)} waits for space while {@link #order(Order)}
+ * refuses the order as the Factory interface asks for an immediate answer.
+ * Each accepted order has a CompletableFuture that completes with the delivered maze.
+ * Orders still receive progress updates and the maze by {@code deliver}
+ * before the future completes. Cancelling the future stops the build.
+ *
+ * Each build draws random numbers from a generator of its own that is seeded
+ * with the seed of the order, so builds do not interfere with each other
+ * and an order gives the same maze as with the MazeFactory.
+ */
+public class ConcurrentMazeFactory implements Factory {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(ConcurrentMazeFactory.class.getName());
+
+	private final ExecutorService workers; // threads that build mazes
+	private final Semaphore capacity; // one permit per order that is queued or in progress
+	private final Set<CompletableFuture<Maze>> pending = ConcurrentHashMap.newKeySet(); // orders not completed yet
+
+	//////////////////////// Constructor ////////////////////////////////////////
+	/**
+	 * Constructor for a factory with one worker per processor
+	 * @param queueCapacity number of orders that can wait for a worker, {@code 0 <= queueCapacity}
+	 */
+	public ConcurrentMazeFactory(int queueCapacity) {
+		this(Runtime.getRuntime().availableProcessors(), queueCapacity);
+	}
+	/**
+	 * Constructor
+	 * @param workerCount number of worker threads, {@code 0 < workerCount}
+	 * @param queueCapacity number of orders that can wait for a worker, {@code 0 <= queueCapacity}
+	 */
+	public ConcurrentMazeFactory(int workerCount, int queueCapacity) {
+		if (workerCount < 1 || queueCapacity < 0)
+			throw new IllegalArgumentException("Unsupported worker count or queue capacity: "
+					+ workerCount + ", " + queueCapacity);
+		workers = Executors.newFixedThreadPool(workerCount);
+		capacity = new Semaphore(workerCount + queueCapacity);
+	}
+
+	//////////////////////// Factory interface //////////////////////////////////
+	@Override
+	public boolean order(Order order) {
+		return null != offer(order);
+	}
+	@Override
+	public void cancel() {
+		LOGGER.fine("Received call to cancel all orders");
+		for (CompletableFuture<Maze> result : pending) {
+			result.cancel(true);
+		}
+	}
+	@Override
+	public void waitTillDelivered() {
+		for (CompletableFuture<Maze> result : pending) {
+			try {
+				result.join();
+			} catch (CancellationException | CompletionException e) {
+				// not delivered, nothing to wait for
+			}
+		}
+	}
+
+	//////////////////////// public methods /////////////////////////////////////
+	/**
+	 * Takes an order and waits for space in the queue if it is full.
+	 * @param order specifies what kind of maze is wanted and the result once delivered
+	 * @return the future that completes with the delivered maze,
+	 * it completes exceptionally if the order can not be built
+	 * @throws InterruptedException if interrupted while waiting for space in the queue
+	 * @throws RejectedExecutionException if the factory is shut down
+	 */
+	public CompletableFuture<Maze> submit(Order order) throws InterruptedException {
+		capacity.acquire();
+		final CompletableFuture<Maze> result = accept(order);
+		if (null == result)
+			throw new IllegalArgumentException("Missing implementation for requested algorithm: " + order.getBuilder());
+		return result;
+	}
+	/**
+	 * Takes or refuses an order without waiting, as {@link #order(Order)} does.
+	 * @param order specifies what kind of maze is wanted and the result once delivered
+	 * @return the future that completes with the delivered maze, exceptionally if the order 
+	 * can not be built or if it is cancelled, null if the order is refused
+	 */
+	CompletableFuture<Maze> offer(Order order) {
+		if (!capacity.tryAcquire()) {
+			LOGGER.warning("Refusing to take order, queue is full");
+			return null;
+		}
+		try {
+			return accept(order);
+		} catch (RejectedExecutionException e) {
+			LOGGER.warning("Refusing to take order, factory is shut down");
+			return null;
+		}
+	}
+	/**
+	 * Stops all workers after cancelling orders that are not completed yet.
+	 * The factory takes no more orders.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+		cancel();
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Hands an order to the workers, the caller holds a permit for it
+	 * @param order the order to build
+	 * @return the future for the delivered maze, null if there is no builder for the order
+	 */
+	private CompletableFuture<Maze> accept(Order order) {
+		final MazeBuilder builder = MazeFactory.createBuilder(order.getBuilder());
+		if (null == builder) {
+			LOGGER.severe("Missing implementation for requested algorithm: " + order.getBuilder());
+			capacity.release();
+			return null;
+		}
+		final CompletableFuture<Maze> result = new CompletableFuture<>();
+		pending.add(result);
+		final Future<?> task;
+		try {
+			task = workers.submit(() -> build(builder, order, result));
+		} catch (RejectedExecutionException e) {
+			// rejected after shutdown
+			pending.remove(result);
+			capacity.release();
+			throw e;
+		}
+		// completes exactly once: delivered, failed or cancelled
+		result.whenComplete((maze, failure) -> {
+			if (result.isCancelled())
+				task.cancel(true);
+			pending.remove(result);
+			capacity.release();
+		});
+		return result;
+	}
+	/**
+	 * Builds the maze for an order in the current worker thread
+	 * @param builder the builder for the algorithm of the order
+	 * @param order the order to build
+	 * @param result the future to complete with the delivered maze
+	 */
+	private void build(MazeBuilder builder, Order order, CompletableFuture<Maze> result) {
+		if (result.isDone())
+			return;
+		try {
+			builder.buildOrder(new Delivery(order, result), SingleRandom.createIndependent(order.getSeed()));
+			builder.run();
+		} catch (Throwable e) {
+			// errors such as an OutOfMemoryError must not leave the future incomplete
+			LOGGER.severe("Building the ordered maze lead to an exception: " + e);
+			result.completeExceptionally(e);
+		} finally {
+			// the builder returns without delivery if it is interrupted
+			result.cancel(false);
+		}
+	}
+
+	/**
+	 * Forwards all calls to an order and completes the future
+	 * of the order after the maze is delivered.
+	 */
+	private static class Delivery implements Order {
+		private final Order order;
+		private final CompletableFuture<Maze> result;
+
+		Delivery(Order order, CompletableFuture<Maze> result) {
+			this.order = order;
+			this.result = result;
+		}
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public int getSeed() {
+			return order.getSeed();
+		}
+		@Override
+		public void deliver(Maze mazeConfig) {
+			order.deliver(mazeConfig);
+			result.complete(mazeConfig);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package generation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A partition of the integers {@code 0,1,...,size-1} into disjoint sets
+ * that several threads can merge at the same time, see {@link UnionFind}
+ * for the single threaded variant.
+ *
+ * A root is linked with a compare-and-set operation and always below
+ * the root with the smaller index. Parents thus have smaller indices than
+ * their children, which rules out cycles no matter how operations interleave.
+ * Find operations shorten paths with path halving, which is safe as it only
+ * ever replaces a parent by one of its ancestors.
+ */
+class ConcurrentUnionFind {
+	private final AtomicIntegerArray parent; // parent[i] == i for the root of a set, parent[i] <= i otherwise
+	private final AtomicInteger count; // number of sets
+
+	/**
+	 * Constructor for a partition where each element is a set of its own
+	 * @param size the number of elements, {@code 0 <= size}
+	 */
+	ConcurrentUnionFind(int size) {
+		parent = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			parent.set(i, i);
+		}
+		count = new AtomicInteger(size);
+	}
+	/**
+	 * Gives the root of the set that contains the given element.
+	 * If other threads merge sets at the same time, the result
+	 * may be outdated by the time it is returned.
+	 * @param element the element, {@code 0 <= element < size}
+	 * @return root of the set
+	 */
+	int find(int element) {
+		while (true) {
+			final int p = parent.get(element);
+			if (p == element)
+				return element;
+			final int grandparent = parent.get(p);
+			// path halving, a failed update means another thread did better
+			if (p != grandparent)
+				parent.compareAndSet(element, p, grandparent);
+			element = grandparent;
+		}
+	}
+	/**
+	 * Merges the sets that contain the given elements.
+	 * If several threads try to merge the same two sets,
+	 * exactly one of them succeeds.
+	 * @param a an element, {@code 0 <= a < size}
+	 * @param b another element, {@code 0 <= b < size}
+	 * @return true if this call merged two different sets, false if a and b are in the same set
+	 */
+	boolean union(int a, int b) {
+		while (true) {
+			int rootA = find(a);
+			int rootB = find(b);
+			if (rootA == rootB)
+				return false;
+			// link the root with the larger index below the one with the smaller index
+			if (rootA < rootB) {
+				final int tmp = rootA;
+				rootA = rootB;
+				rootB = tmp;
+			}
+			if (parent.compareAndSet(rootA, rootA, rootB)) {
+				count.decrementAndGet();
+				return true;
+			}
+			// rootA got linked by another thread in the meantime, try again
+		}
+	}
+	/**
+	 * Gives the number of disjoint sets.
+	 * @return number of sets
+	 */
+	int getCount() {
+		return count.get();
+	}
+}
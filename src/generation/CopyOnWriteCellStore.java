@@ -0,0 +1,76 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * Cell store that keeps one 16 bit char per cell with a separate
+ * array for each row, i.e. cell (x,y) is located at {@code rows[y][x]}.
+ *
+ * Rows can be shared between several stores, which makes a copy of
+ * a store cheap: it only copies the references to the rows.
+ * A store that changes a cell in a shared row first replaces the row
+ * with a private copy, so a change never shows in other stores.
+ * The cost of a copy is thus spread over the rows that are
+ * actually changed afterwards.
+ *
+ * A row that has been shared is never written to again, so stores
+ * that share rows can be read from different threads without locks
+ * as long as each store itself is only changed by a single thread
+ * and copies of a store that is changed are taken on that same thread.
+ * Taking a copy marks the rows of the original as shared, a copy on another
+ * thread could race with a change to the original and let that change
+ * show in the copy.
+ * A store that is never changed, like a copy itself, can be copied
+ * on any thread as its rows are all marked as shared already.
+ */
+class CopyOnWriteCellStore implements CellStore {
+	private final char[][] rows; // height rows of width cells each
+	private final boolean[] shared; // shared[y] is true if rows[y] may be referenced by another store
+
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 */
+	CopyOnWriteCellStore(int w, int h) {
+		rows = new char[h][w];
+		shared = new boolean[h];
+	}
+	/**
+	 * Constructor for a copy that shares all rows with the given store
+	 * @param original the store to copy, not null
+	 */
+	private CopyOnWriteCellStore(CopyOnWriteCellStore original) {
+		rows = original.rows.clone();
+		shared = new boolean[rows.length];
+		Arrays.fill(shared, true);
+		// the original must not write into the rows it just handed out,
+		// rows that are shared already are left alone such that this store is only read
+		for (int y = 0; y < shared.length; y++) {
+			if (!original.shared[y])
+				original.shared[y] = true;
+		}
+	}
+	/**
+	 * Gives a copy of this store that shares all rows with this store.
+	 * The copy takes time proportional to the height only.
+	 * It must be taken on the thread that changes this store, if any.
+	 * @return copy with the same content
+	 */
+	CopyOnWriteCellStore share() {
+		return new CopyOnWriteCellStore(this);
+	}
+	@Override
+	public int get(int x, int y) {
+		return rows[y][x];
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		assert (value & ~0xFFFF) == 0 : "Value " + value + " does not fit into 16 bits";
+		if (shared[y]) {
+			rows[y] = rows[y].clone();
+			shared[y] = false;
+		}
+		rows[y][x] = (char) value;
+	}
+}
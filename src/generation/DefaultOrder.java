@@ -112,7 +112,7 @@ public class DefaultOrder implements Order {
 	 * This field is set by the MazeFactory and updated
 	 * during the maze generation.
 	 */
-	int progress;
+	volatile int progress;
 	
 	/**
 	 * Constructor that initializes fields to meaningful default values.
@@ -1,9 +1,15 @@
 package generation;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
 /**
  * This class has the responsibility to provide the distance
  * for each cell to the exit of a maze.
- * It represents this information as a matrix, a 2D integer array.
+ * It represents this information as a matrix, by default a 2D integer array,
+ * for very large mazes a memory mapped store outside of the heap.
  * Its dimensions and positioning of (x,y) coordinates matches
  * with the same notion in the Cells.java class
  * that represents the walls for the maze.
@@ -29,6 +35,10 @@ package generation;
  * Refactored by Peter Kemper
  */
 public class Distance {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(Distance.class.getName());
 	/**
 	 * The width of the distance matrix, same as width of maze and cells
 	 */
@@ -38,16 +48,16 @@ public class Distance {
 	 */
 	private int height; 
 	/**
-	 * A matrix of dimension (width x height) with 
+	 * A store of dimension (width x height) with 
 	 * distance values to the exit of a maze.
-	 * The use of indices between Distance and Cells internal 2D matrices
+	 * The use of indices between Distance and Cells
 	 * is consistent such that (i,j) in dists refers to the same 
 	 * position in cells.
 	 * Warning: class does not enforce encapsulation
-	 * on dists. There are ways to set this reference,
+	 * on dists if it is backed by an array. There are ways to set this reference,
 	 * obtain it and manipulate its content. 
 	 */
-	private int[][] dists; 
+	private DistanceStore dists; 
 	/** 
 	 * The exit position has a distance of 1
 	 * which is also the minimum of all values in dists.
@@ -65,6 +75,18 @@ public class Distance {
 	 * to this instance.
 	 */
 	private int[] startPosition;
+	/**
+	 * The position on the border with the maximum distance,
+	 * as determined by the most recent distance computation.
+	 * Array of length 2, with coordinates (x,y) of that position.
+	 */
+	private int[] farthestOnBorder;
+	/**
+	 * Tells if the next hop table in dists is consistent with the distance values.
+	 * Next hops are computed together with the distances, but not 
+	 * for distance values that are provided from the outside.
+	 */
+	private volatile boolean hasNextHops; // volatile to publish a lazily computed table to other readers
 	// Memo: the start position is also stored in the MazeContainer, supports a set method
 	// this could lead to inconsistent settings between MazeContainer and Distance object at runtime.
 	// TODO: avoid redundancy of start position, remove startPosition from Distance, replease with getPositionWithMaxDistance
@@ -79,6 +101,28 @@ public class Distance {
 		// exitPosition and startPosition
 		setAllDistanceValues(new int[w][h]);
 	}
+	/**
+	 * Constructor that selects where distance values are kept
+	 * to match with the given layout of a floorplan.
+	 * For the MAPPED layout, distance values are kept in a memory mapped
+	 * temporary file outside of the heap, for all other layouts
+	 * they are kept in a 2D array.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction
+	 * @param layout is the layout of the floorplan of the maze, not null
+	 */
+	public Distance(int w, int h, Floorplan.Layout layout) {
+		if (Floorplan.Layout.MAPPED == layout) {
+			width = w;
+			height = h;
+			dists = new MappedDistanceStore(w, h);
+			exitPosition = null;
+			startPosition = null;
+			hasNextHops = false;
+		}
+		else
+			setAllDistanceValues(new int[w][h]);
+	}
 	/**
 	 * Constructor that directly uses the given reference.
 	 * Warning: the given parameter is shared, not copied. 
@@ -106,23 +150,29 @@ public class Distance {
 		// side constraint: dists must be of dimension width x height
 		width = distances.length;
 		height = distances[0].length;
-		this.dists = distances;
+		this.dists = new ArrayDistanceStore(distances);
 		// reset exit and start positions
 		// note: lazy evaluation in the sense that positions are
 		// computed on demand and then cached on corresponding
 		// fields exitPosition and startPosition
 		exitPosition = null;
 		startPosition = null;
+		hasNextHops = false;
 	}
 	/**
 	 * Gets access to a width x height array of distances. 
 	 * Warning, this exposes the internal attribute
 	 * and is intended for read access only. 
 	 * Do not modify entries of the returned array.
+	 * Distances that are kept outside of the heap are not backed by
+	 * an array, use {@link #getDistanceValue(int, int)} instead.
 	 * @return array with distance values
+	 * @throws UnsupportedOperationException if distances are kept outside of the heap
 	 */
 	public int[][] getAllDistanceValues() {
-		return dists;
+		if (dists instanceof ArrayDistanceStore)
+			return ((ArrayDistanceStore) dists).getArray();
+		throw new UnsupportedOperationException("Distance values are not kept in an array");
 	}
 	/**
 	 * Gets the distance value for the given (x,y) position
@@ -131,7 +181,7 @@ public class Distance {
 	 * @return the distance value for the given (x,y) position
 	 */
 	public int getDistanceValue(int x, int y) {
-		return dists[x][y] ;
+		return dists.get(x, y) ;
 	}
 	/**
 	 * Compute distances for given cells object of a maze.
@@ -158,12 +208,14 @@ public class Distance {
 		// compute temporary distances for a starting point 
 		// (x,y) = (width/2,height/2) 
 		// which is located in the center of the maze
+		// the computation also determines which position is the farthest 
+		// on the border to find a candidate for the exit position
 		computeDists(cells, width/2, height/2);
-		// figure out which position is the farthest on the border 
-		// to find a candidate for the exit position
-		exitPosition = getPositionWithMaxDistanceOnBorder();
-		// Step 2: compute distances with regards to the exit position
+		exitPosition = farthestOnBorder;
+		// Step 2: compute distances with regards to the exit position,
+		// this also determines the starting position
 		computeDists(cells, exitPosition[0], exitPosition[1]);
+		computeNextHops(cells);
 		return exitPosition ;
 	}
 
@@ -219,6 +271,222 @@ public class Distance {
 			exitPosition = getPositionWithMinDistance() ;
 		return ((x == exitPosition[0]) && (y == exitPosition[1])) ;
 	}
+	/**
+	 * Recomputes all distance values for the current exit position.
+	 * Other than {@link #computeDistances(Floorplan)}, the exit position is kept.
+	 * This is useful after wallboards changed in a way that 
+	 * {@link #updateDistances(Floorplan, List)} can not describe.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 */
+	public void recomputeDistances(Floorplan cells) {
+		int[] exit = getExitPosition();
+		computeDists(cells, exit[0], exit[1]);
+		computeNextHops(cells);
+	}
+	/**
+	 * Tells if next hops are available, which is the case after distances
+	 * have been computed for a floorplan. 
+	 * If distance values were provided directly, next hops need to be computed 
+	 * with {@link #computeNextHops(Floorplan)}.
+	 * @return true if {@link #getDirectionCloserToExit(int, int)} can be used, false otherwise
+	 */
+	public boolean hasNextHops() {
+		return hasNextHops;
+	}
+	/**
+	 * Computes the next hop for each position, i.e., the direction
+	 * towards a neighbor that is closer to the exit, based on the 
+	 * current distance values. 
+	 * Out of several candidates, the neighbor with the smallest distance is chosen
+	 * and for neighbors with the same distance the first in the order 
+	 * of {@link CardinalDirection#values()}.
+	 * This is done automatically for distances computed by this class.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 */
+	public void computeNextHops(Floorplan cells) {
+		if ((long) width * height >= parallelThreshold) {
+			// rows are independent of each other
+			IntStream.range(0, height).parallel().forEach(y -> computeNextHopsForRow(cells, y));
+		}
+		else {
+			for (int y = 0; y < height; y++) {
+				computeNextHopsForRow(cells, y);
+			}
+		}
+		hasNextHops = true;
+	}
+	/**
+	 * Gives the direction towards an adjacent position that is closer to the exit.
+	 * Following these directions from any position leads to the exit on a shortest path.
+	 * The method does not allocate any objects and runs in constant time.
+	 * Requires that next hops are available, see {@link #hasNextHops()}.
+	 * @param x is the x coordinate, {@code 0 <= x < width}
+	 * @param y is the y coordinate, {@code 0 <= y < height}
+	 * @return the direction or null for the exit position 
+	 * and positions that have no path to the exit
+	 */
+	public CardinalDirection getDirectionCloserToExit(int x, int y) {
+		assert hasNextHops : "Next hops are not computed";
+		final int hop = dists.getNextHop(x, y);
+		return (NO_NEXT_HOP == hop) ? null : CardinalDirection.fromOrdinal(hop);
+	}
+	/**
+	 * Repairs distance values after the given wallboards have been added to
+	 * or removed from the given floorplan. The exit position is kept.
+	 * Only the part of the maze whose distances depend on the changed 
+	 * wallboards is updated, which makes this much cheaper than 
+	 * {@link #recomputeDistances(Floorplan)} for local changes.
+	 * The result is the same as for a recomputation.
+	 * 
+	 * The floorplan must already reflect the changes, the list only tells
+	 * where to look. It does not matter if a wallboard was added or removed,
+	 * or if it was changed on one or both sides.
+	 * 
+	 * The update works in two phases as a dynamic shortest path algorithm.
+	 * First, added wallboards may cut shortest paths. Cells are checked
+	 * in the order of increasing distance if they still have a neighbor 
+	 * at one step less that leads to them. Those that do not are affected
+	 * and lose their value, which may affect cells further away.
+	 * Second, affected cells receive a tentative distance from their
+	 * unaffected neighbors and, together with cells that are reached over removed
+	 * wallboards, serve as seeds for a breadth-first propagation
+	 * of shorter distances.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param wallboards the changed wallboards, can not be null
+	 */
+	public void updateDistances(Floorplan cells, List<Wallboard> wallboards) {
+		final int[] exit = getExitPosition();
+		final int exitIndex = getIndex(exit[0], exit[1]);
+		// Phase 1: find cells whose distance depended on a closed wallboard
+		long[] candidates = new long[2*wallboards.size()];
+		int count = 0;
+		for (Wallboard wallboard : wallboards) {
+			final int x = wallboard.getX();
+			final int y = wallboard.getY();
+			final CardinalDirection cd = wallboard.getDirection();
+			final int nx = x + cd.getDx();
+			final int ny = y + cd.getDy();
+			if (!isOnBoard(nx, ny))
+				continue; // wallboard on the border, no path crosses it
+			// check both directions to cover wallboards on one side only
+			if (isCutShortestPath(cells, x, y, cd, exitIndex))
+				candidates[count++] = getKey(dists.get(nx, ny), getIndex(nx, ny));
+			if (isCutShortestPath(cells, nx, ny, cd.oppositeDirection(), exitIndex))
+				candidates[count++] = getKey(dists.get(x, y), getIndex(x, y));
+		}
+		Arrays.sort(candidates, 0, count);
+		// affected cells first, cells that change in phase 2 are appended later on
+		int[] affected = new int[Math.max(4, count)];
+		int affectedCount = 0;
+		final IntRingBuffer queue = new IntRingBuffer();
+		int next = 0;
+		while (true) {
+			// drop cells in the queue that turned out to be affected already 
+			while (!queue.isEmpty() && INFINITY == getDistanceValue(queue.peek()))
+				queue.remove();
+			if (next == count && queue.isEmpty())
+				break;
+			// merge sorted candidates with queue, the queue is sorted as well
+			final int index;
+			if (queue.isEmpty() || (next < count && getDistance(candidates[next]) <= getDistanceValue(queue.peek())))
+				index = getCellIndex(candidates[next++]);
+			else
+				index = queue.remove();
+			final int x = index % width;
+			final int y = index / width;
+			final int d = dists.get(x, y);
+			if (INFINITY == d || hasShortestPathPredecessor(cells, x, y, d))
+				continue;
+			dists.set(x, y, INFINITY);
+			if (affectedCount == affected.length)
+				affected = Arrays.copyOf(affected, 2*affectedCount);
+			affected[affectedCount++] = index;
+			// successors may have depended on this cell
+			for (CardinalDirection cd : CardinalDirection.VALUES) {
+				if (isOpen(cells, x, y, cd) && dists.get(x+cd.getDx(), y+cd.getDy()) == d+1)
+					queue.add(getIndex(x+cd.getDx(), y+cd.getDy()));
+			}
+		}
+		// Phase 2: seed affected cells from their neighbors and 
+		// cells that can be reached on a shorter path over an opened wallboard
+		long[] seeds = new long[affectedCount + 2*wallboards.size()];
+		count = 0;
+		for (int i = 0; i < affectedCount; i++) {
+			final int x = affected[i] % width;
+			final int y = affected[i] / width;
+			final int d = getDistanceFromPredecessors(cells, x, y);
+			if (INFINITY != d) {
+				dists.set(x, y, d);
+				seeds[count++] = getKey(d, affected[i]);
+			}
+		}
+		for (Wallboard wallboard : wallboards) {
+			final int x = wallboard.getX();
+			final int y = wallboard.getY();
+			final CardinalDirection cd = wallboard.getDirection();
+			if (!isOnBoard(x + cd.getDx(), y + cd.getDy()))
+				continue;
+			// both sides of the wallboard
+			for (int side = 0; side < 2; side++) {
+				final int cx = x + side*cd.getDx();
+				final int cy = y + side*cd.getDy();
+				final int d = getDistanceFromPredecessors(cells, cx, cy);
+				if (d < dists.get(cx, cy)) {
+					dists.set(cx, cy, d);
+					seeds[count++] = getKey(d, getIndex(cx, cy));
+				}
+			}
+		}
+		Arrays.sort(seeds, 0, count);
+		// propagate shorter distances, seeds and queue are both sorted by distance
+		queue.clear();
+		next = 0;
+		int changedCount = affectedCount;
+		while (next < count || !queue.isEmpty()) {
+			final int index;
+			if (queue.isEmpty() || (next < count && getDistance(seeds[next]) <= getDistanceValue(queue.peek()))) {
+				index = getCellIndex(seeds[next]);
+				if (getDistance(seeds[next++]) != getDistanceValue(index))
+					continue; // outdated, the cell received a smaller value in the meantime
+			}
+			else
+				index = queue.remove();
+			if (changedCount == affected.length)
+				affected = Arrays.copyOf(affected, 2*changedCount);
+			affected[changedCount++] = index;
+			final int x = index % width;
+			final int y = index / width;
+			final int d = dists.get(x, y) + 1;
+			for (CardinalDirection cd : CardinalDirection.VALUES) {
+				if (isOpen(cells, x, y, cd) && d < dists.get(x+cd.getDx(), y+cd.getDy())) {
+					dists.set(x+cd.getDx(), y+cd.getDy(), d);
+					queue.add(getIndex(x+cd.getDx(), y+cd.getDy()));
+				}
+			}
+		}
+		if (0 < affectedCount || 0 < count) {
+			// the starting position is determined on demand
+			startPosition = null;
+		}
+		if (hasNextHops) {
+			// next hops depend on the distances of neighbors and wallboards in between
+			for (int i = 0; i < changedCount; i++) {
+				computeNextHopsAround(cells, affected[i] % width, affected[i] / width);
+			}
+			for (Wallboard wallboard : wallboards) {
+				computeNextHopsAround(cells, wallboard.getX(), wallboard.getY());
+			}
+		}
+		int unreached = 0;
+		for (int i = 0; i < affectedCount; i++) {
+			if (INFINITY == getDistanceValue(affected[i]))
+				unreached++;
+		}
+		if (0 < unreached)
+			LOGGER.warning("All positions should have a finite distance to the exit, counted: " + unreached);
+		assert (0 == unreached) : 
+			"All positions should have a finite distance to the exit";
+	}
 	//////////////////////////////////////////////////////////////////////////
 	//////////////// private, internal methods ///////////////////////////////
 	//////////////////////////////////////////////////////////////////////////
@@ -271,10 +539,10 @@ public class Distance {
 	 * @return the new maximum distance after the comparison
 	 */
 	private int keepMaxDistance(int x, int y, int d, int[] result) {
-		if (dists[x][y] > d) {
+		if (dists.get(x, y) > d) {
 			result[0] = x;
 			result[1] = y;
-			d = dists[x][y];
+			d = dists.get(x, y);
 		}
 		return d;
 	}
@@ -289,10 +557,10 @@ public class Distance {
 		int[] result = new int[2] ;
 		for (int x = 0; x != width; x++)
 			for (int y = 0; y != height; y++) {
-				if (dists[x][y] < d) {
+				if (dists.get(x, y) < d) {
 					result[0] = x;
 					result[1] = y;
-					d = dists[x][y];
+					d = dists.get(x, y);
 				}
 			}
 		return result ;
@@ -304,164 +572,292 @@ public class Distance {
 	 * in matrix dists.
 	 */
 	static final int INFINITY = Integer.MAX_VALUE; 
+	/**
+	 * Value in the next hop table for positions without a next hop.
+	 */
+	static final int NO_NEXT_HOP = 4;
+	/**
+	 * Wallboard bits for directions in the order of their ordinal values,
+	 * which are also used in the next hop table.
+	 */
+	private static final int[] WALL_BITS = {Floorplan.CW_TOP, Floorplan.CW_RIGHT, Floorplan.CW_BOT, Floorplan.CW_LEFT};
+	/**
+	 * Mazes with at least this number of cells have their distances
+	 * computed in parallel.
+	 */
+	private static long parallelThreshold = 1L << 20;
+	
+	/**
+	 * Gets the number of cells from which on distances are computed in parallel.
+	 * @return the current threshold
+	 */
+	public static long getParallelThreshold() {
+		return parallelThreshold;
+	}
+	/**
+	 * Sets the number of cells from which on distances are computed in parallel.
+	 * Smaller mazes are computed in the current thread as the overhead 
+	 * of the parallel computation does not pay off for them.
+	 * The results are the same either way.
+	 * @param threshold the number of cells, 0 to compute all mazes in parallel,
+	 * {@code Long.MAX_VALUE} to compute all mazes in the current thread
+	 */
+	public static void setParallelThreshold(long threshold) {
+		assert 0 <= threshold : "Threshold can not be negative";
+		parallelThreshold = threshold;
+	}
 
 	/**
-	 * Computes distances to the given position (ax,ay) for all cells in array dists.
-	 * @param cells with information on wallboards for a maze, can not be null
+	 * Computes distances to the given position (ax,ay) for all cells in dists.
+	 * The computation is a breadth-first search that starts at (ax,ay).
+	 * Cells are visited in the order of increasing distance such that
+	 * each cell receives its final value when it is added to the queue.
+	 * Like the fixpoint iteration it replaces, a neighbor is reached
+	 * from a cell if that cell has no wallboard in the direction of the neighbor.
+	 * Mazes with at least {@link #getParallelThreshold()} cells are
+	 * searched in parallel, see {@link ParallelBreadthFirstSearch}, 
+	 * with the same results.
+	 * 
+	 * During the same sweep, the method determines the position with the
+	 * maximum distance and the position on the border with the maximum distance.
+	 * Ties are resolved as in {@link #getPositionWithMaxDistance()} and 
+	 * {@link #getPositionWithMaxDistanceOnBorder()}, see {@link DistanceSweep}.
+	 * Results are stored in fields startPosition and farthestOnBorder.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
 	 * @param ax, position, x coordinate
 	 * @param ay, position, y coordinate
 	 */
 	private void computeDists(Floorplan cells, int ax, int ay) {
-		//int x, y;
+		final DistanceSweep sweep = ((long) width * height >= parallelThreshold) ?
+				ParallelBreadthFirstSearch.search(cells, dists, width, height, ax, ay) :
+				searchSerial(cells, ax, ay);
+		final int unreached = width*height - sweep.getReached();
+		if (0 < unreached) {
+			System.out.println("Distance: ERROR: All positions should have a finite distance to the exit, counted: " + unreached );
+			// cells with an infinite distance take precedence, 
+			// fall back on a full scan to select them
+			startPosition = null;
+			farthestOnBorder = getPositionWithMaxDistanceOnBorder();
+		}
+		else {
+			startPosition = sweep.getMaxPosition();
+			farthestOnBorder = sweep.getMaxPositionOnBorder();
+		}
+		assert (0 == unreached) : 
+			"All positions should have a finite distance to the exit";
+	}
+	/**
+	 * Performs the breadth-first search for {@link #computeDists(Floorplan, int, int)}
+	 * in the current thread with a queue of packed cell indices.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
+	 * @return information on the cells that have been reached
+	 */
+	private DistanceSweep searchSerial(Floorplan cells, int ax, int ay) {
 		// initialize the distance array with a value for infinity 
+		// which also marks a cell as not yet visited
 		setAllDistanceValues(INFINITY) ;
 		// set the final distance at the exit position
-		dists[ax][ay] = 1;
-		// distribute values from this position to get started
-		pushDistanceValuesDFS2(cells, ax, ay);
-		int toDoCounter = countInfinity();
-		int progress; // used to recognize fixpoint, no progress, then stop
-		// go over this array as long as we can find something to do
-		// MEMO: there are likely to be much smarter ways to distribute distances in a breadth first manner...
-		// why not push identified cells with infinite distance on a "work to do" heap
-		// TODO: limit iterations to upperbound which is #cells == width * height
-		// in each iteration at least one cell should benefit from neighbor
-		// in each iteration at least one cell should receive its final value
-		// TODO: do a final checkup for enclosed areas left over with Max Int
-		do {
-			// check all entries in the distance array
-			for (int x = 0; x != width; x++) {
-				for (int y = 0; y != height; y++) 
-				{
-					if (dists[x][y] == INFINITY) {
-						continue;
-					}
-					// if the distance is not infinite, 
-					// let's see if the cell has a neighbor that we can update and 
-					// perform a depth first search on.
-					pushDistanceValuesDFS2(cells, x, y);
-				}
-			}
-			progress = toDoCounter - countInfinity();
-			toDoCounter -= progress; // update to current value
-		} while (0 < progress);
-		if (0 < countInfinity())
-			System.out.println("Distance: ERROR: All positions should have a finite distance to the exit, counted: " + countInfinity() );
-		assert (0 == countInfinity()) : 
-			"All positions should have a finite distance to the exit";
-		// the computation is not good enough to have truly minimum values
-		saturateDistances(cells);
+		dists.set(ax, ay, 1);
+		final IntRingBuffer queue = new IntRingBuffer();
+		queue.add(getIndex(ax, ay));
+		final DistanceSweep sweep = new DistanceSweep(width, height);
+		while (!queue.isEmpty()) {
+			final int index = queue.remove();
+			final int x = index % width;
+			final int y = index / width;
+			final int d = dists.get(x, y);
+			sweep.consider(x, y, d);
+			// push distance to reachable neighbors that have not been visited yet
+			final int walls = cells.getValueOfCell(x, y);
+			if ((walls & Floorplan.CW_TOP) == 0 && 0 < y)
+				visit(queue, x, y-1, d+1);
+			if ((walls & Floorplan.CW_RIGHT) == 0 && x < width-1)
+				visit(queue, x+1, y, d+1);
+			if ((walls & Floorplan.CW_BOT) == 0 && y < height-1)
+				visit(queue, x, y+1, d+1);
+			if ((walls & Floorplan.CW_LEFT) == 0 && 0 < x)
+				visit(queue, x-1, y, d+1);
+		}
+		return sweep;
 	}
 	/**
-	 * Follows a path as far as possible to push small distance values
-	 * into the maze
-	 * @param cells needed for checking wallboards, read only
-	 * @param sx starting position
-	 * @param sy starting position
+	 * Assigns the given distance to the cell at (x,y) if it
+	 * has not been visited yet and adds it to the queue.
+	 * @param queue the queue of cells to be processed
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param distance the distance for the cell
 	 */
-	private void pushDistanceValuesDFS2(Floorplan cells, int sx, int sy) {
-		while (true) {
-			CardinalDirection nextn = updateNeighborDistancesAndDirection(cells, sx, sy);
-			if (nextn == null)
-				break; // exit the loop if we cannot find another cell to proceed with
-			// update coordinates for next cell
-			int[] dir = nextn.getDxDyDirection();
-			sx += dir[0];
-			sy += dir[1];
-			// follow the nextn node on a depth-first-search path
+	private void visit(IntRingBuffer queue, int x, int y, int distance) {
+		if (dists.get(x, y) == INFINITY) {
+			dists.set(x, y, distance);
+			queue.add(getIndex(x, y));
 		}
 	}
-
+	/**
+	 * Gives the packed index of a cell that is used in the queue.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return index in row-major order
+	 */
+	private int getIndex(int x, int y) {
+		return y*width + x;
+	}
 	
 	/**
-	 * Sets all values in dists to given value
-	 * @param value
+	 * Computes next hops for all positions in the given row.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param y coordinate of row, {@code 0 <= y < height}
 	 */
-	private void setAllDistanceValues(int value) {
+	private void computeNextHopsForRow(Floorplan cells, int y) {
 		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				dists[x][y] = value ;
-			}
+			computeNextHop(cells, x, y);
 		}
 	}
 	/**
-	 * Counts how often infinity values is present in matrix
-	 * @return the number of cells with an infinite distance to the exit
+	 * Computes next hops for (x,y) and its adjacent positions.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
 	 */
-	private int countInfinity() {
-		int result = 0;
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				if (dists[x][y] == INFINITY)
-					result++;
+	private void computeNextHopsAround(Floorplan cells, int x, int y) {
+		computeNextHop(cells, x, y);
+		for (CardinalDirection cd : CardinalDirection.VALUES) {
+			if (isOnBoard(x + cd.getDx(), y + cd.getDy()))
+				computeNextHop(cells, x + cd.getDx(), y + cd.getDy());
+		}
+	}
+	/**
+	 * Computes the next hop for (x,y) as the direction towards the reachable
+	 * neighbor with the smallest distance that is smaller than the one of (x,y).
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 */
+	private void computeNextHop(Floorplan cells, int x, int y) {
+		int result = NO_NEXT_HOP;
+		int d = dists.get(x, y);
+		final int walls = cells.getValueOfCell(x, y);
+		for (CardinalDirection cd : CardinalDirection.VALUES) {
+			final int nx = x + cd.getDx();
+			final int ny = y + cd.getDy();
+			if ((walls & WALL_BITS[cd.ordinal()]) == 0 && isOnBoard(nx, ny) && dists.get(nx, ny) < d) {
+				d = dists.get(nx, ny);
+				result = cd.ordinal();
 			}
 		}
-		return result;
+		dists.setNextHop(x, y, result);
 	}
 	/**
-	 * Updates distance values for adjacent cells that are reachable
-	 * if value can be reduced to current distance plus 1. 
+	 * Tells if a wallboard in the given direction of (x,y) cuts off 
+	 * a path that a shortest path to the neighbor may depend on.
 	 * @param cells with information on wallboards for a maze, can not be null, read only
-	 * @param currentX x coordinate of current position
-	 * @param currentY y coordinate of current position
-	 * @return direction for a neighbor that has been updated or null if there is none
-	 */
-	private CardinalDirection updateNeighborDistancesAndDirection(Floorplan cells, int currentX, int currentY) {
-		CardinalDirection result = null; // returns null by default
-		int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
-		int[] dir;
-		int nextX;
-		int nextY;
-		// check all four directions, update distance as needed
-		for (CardinalDirection cd: CardinalDirection.values()) {
-			// check for reachable neighbors
-			if (cells.hasNoWall(currentX, currentY, cd)) {
-				// check if neighbor is on board
-				dir = cd.getDxDyDirection();
-				nextX = currentX+dir[0];
-				nextY = currentY+dir[1];
-				// check if cell at (nextX,nextY) is within bounds
-				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
-					// check if neigbor's distance needs update
-					if (dists[nextX][nextY] > nextDistance) {
-						// update the neighbor's distance value
-						// mark that cell as the next one
-						dists[nextX][nextY] = nextDistance;
-						result = cd;
-					}
-				}
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param cd the direction towards the neighbor
+	 * @param exitIndex index of the exit position which does not depend on any path
+	 * @return true if the neighbor needs to be checked, false otherwise
+	 */
+	private boolean isCutShortestPath(Floorplan cells, int x, int y, CardinalDirection cd, int exitIndex) {
+		final int d = dists.get(x, y);
+		return cells.hasWall(x, y, cd) && INFINITY != d
+				&& dists.get(x+cd.getDx(), y+cd.getDy()) == d+1
+				&& getIndex(x+cd.getDx(), y+cd.getDy()) != exitIndex;
+	}
+	/**
+	 * Tells if (x,y) can be reached from a neighbor with distance d-1.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param d the distance of (x,y)
+	 * @return true if there is such a neighbor, false otherwise
+	 */
+	private boolean hasShortestPathPredecessor(Floorplan cells, int x, int y, int d) {
+		for (CardinalDirection cd : CardinalDirection.VALUES) {
+			final int px = x + cd.getDx();
+			final int py = y + cd.getDy();
+			if (isOnBoard(px, py) && dists.get(px, py) == d-1 && isOpen(cells, px, py, cd.oppositeDirection()))
+				return true;
+		}
+		return false;
+	}
+	/**
+	 * Computes the distance for (x,y) from the distances of its neighbors.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return one plus the minimum distance of neighbors that lead to (x,y),
+	 * INFINITY if there are none
+	 */
+	private int getDistanceFromPredecessors(Floorplan cells, int x, int y) {
+		int result = INFINITY;
+		for (CardinalDirection cd : CardinalDirection.VALUES) {
+			final int px = x + cd.getDx();
+			final int py = y + cd.getDy();
+			if (isOnBoard(px, py) && isOpen(cells, px, py, cd.oppositeDirection())) {
+				final int d = dists.get(px, py);
+				if (INFINITY != d && d+1 < result)
+					result = d+1;
 			}
 		}
 		return result;
 	}
-	
 	/**
-	 * Fix-point iteration on distance matrix.
-	 * @param  cells with information on wallboards for a maze, can not be null, read only
-	 */
-	private void saturateDistances(Floorplan cells) {
-		boolean progress = false; 
-		//int count = 0;
-		int[] dir = null;
-		CardinalDirection nextn;
-		do {
-			progress = false; // reset termination criterion
-			// go through all positions
-			// check if we can update a neighbor to 
-			// a shorter distance, if so we made progress
+	 * Tells if one can go from (x,y) to its neighbor in the given direction.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param cd the direction
+	 * @return true if the neighbor exists and there is no wallboard in between, false otherwise
+	 */
+	private boolean isOpen(Floorplan cells, int x, int y, CardinalDirection cd) {
+		return isOnBoard(x+cd.getDx(), y+cd.getDy()) && cells.hasNoWall(x, y, cd);
+	}
+	/**
+	 * Tells if (x,y) is a position within the maze.
+	 * @param x coordinate
+	 * @param y coordinate
+	 * @return true if {@code 0 <= x < width} and {@code 0 <= y < height}
+	 */
+	private boolean isOnBoard(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+	/**
+	 * Gets the distance value for the cell with the given index.
+	 * @param index packed cell index
+	 * @return the distance value
+	 */
+	private int getDistanceValue(int index) {
+		return dists.get(index % width, index / width);
+	}
+	/**
+	 * Packs a distance and a cell index into a key
+	 * such that keys sort by distance first.
+	 * @param distance the distance value
+	 * @param index the packed cell index
+	 * @return key
+	 */
+	private static long getKey(int distance, int index) {
+		return ((long) distance << 32) | index;
+	}
+	private static int getDistance(long key) {
+		return (int) (key >>> 32);
+	}
+	private static int getCellIndex(long key) {
+		return (int) key;
+	}
+	/**
+	 * Sets all values in dists to given value
+	 * @param value
+	 */
+	private void setAllDistanceValues(int value) {
+		// row by row to match the order of out of heap stores
+		for (int y = 0; y < height; y++) {
 			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					nextn = updateNeighborDistancesAndDirection(cells, x, y);
-					if (null != nextn) {
-						progress = true; // something changed
-						// follow neighbor on a depth-first-search path
-						dir = nextn.getDxDyDirection();
-						pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);		
-					}
-				}
+				dists.set(x, y, value) ;
 			}
-			//count++;
-		} while (progress);
-		//System.out.println("Distance.saturate: #iterations needed " + count);
+		}
 	}
-}
\ No newline at end of file
+}
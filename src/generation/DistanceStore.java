@@ -0,0 +1,58 @@
+package generation;
+
+/**
+ * A distance store holds the distance values of all positions of a maze
+ * together with a table of next hops, one byte per position.
+ * The Distance class encapsulates how distances are computed and 
+ * interpreted, a distance store only decides on how the values
+ * are laid out in memory.
+ *
+ * All methods assume that given (x,y) coordinates are
+ * within the legal range {@code [0,width-1],[0,height-1]}
+ * such that no additional parameter checks are performed.
+ * This is reasonable as distance stores are only used internally
+ * to the package by the Distance class.
+ */
+interface DistanceStore {
+	/**
+	 * Gets the distance value at position (x,y).
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return distance value
+	 */
+	int get(int x, int y);
+	/**
+	 * Sets the distance value at position (x,y).
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param value the new distance value
+	 */
+	void set(int x, int y, int value);
+	/**
+	 * Atomically sets the distance value at position (x,y) 
+	 * if it currently holds the expected value.
+	 * This allows several threads to update distance values concurrently.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param expected the expected current value
+	 * @param value the new distance value
+	 * @return true if the value was updated, false if the current value differs from the expected one
+	 */
+	boolean compareAndSet(int x, int y, int expected, int value);
+	/**
+	 * Gets the next hop at position (x,y), the direction towards
+	 * a neighbor that is closer to the exit.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return ordinal of the CardinalDirection or {@link Distance#NO_NEXT_HOP}
+	 */
+	int getNextHop(int x, int y);
+	/**
+	 * Sets the next hop at position (x,y).
+	 * Concurrent calls for different positions are safe.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param hop ordinal of the CardinalDirection or {@link Distance#NO_NEXT_HOP}
+	 */
+	void setNextHop(int x, int y, int hop);
+}
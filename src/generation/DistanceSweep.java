@@ -0,0 +1,122 @@
+package generation;
+
+/**
+ * Collects information on the cells that a breadth-first search
+ * visits while it assigns distance values: the number of reached cells,
+ * the cell with the maximum distance and the cell on the border with
+ * the maximum distance.
+ *
+ * Ties between cells with the same distance are resolved with a rank
+ * that reflects the order in which the original full matrix scans in
+ * Distance check cells: the cell that comes first in the scan wins.
+ * As the outcome does not depend on the order in which cells are considered,
+ * sweeps of different parts of a search can be merged in any order
+ * with the same result.
+ */
+class DistanceSweep {
+	private final int width;
+	private final int height;
+	private int reached; // number of cells considered
+	// the best candidate for the maximum distance
+	private int maxDist;
+	private int maxRank = Integer.MAX_VALUE;
+	private int maxX, maxY;
+	// the best candidate for the maximum distance on the border
+	private int borderDist;
+	private int borderRank = Integer.MAX_VALUE;
+	private int borderX, borderY;
+
+	/**
+	 * Constructor for an empty sweep
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 */
+	DistanceSweep(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+	/**
+	 * Takes the given cell into account.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param d the distance value of the cell
+	 */
+	void consider(int x, int y, int d) {
+		reached++;
+		// the full matrix scan goes column by column
+		int rank = x*height + y;
+		if (d > maxDist || (d == maxDist && rank < maxRank)) {
+			maxDist = d;
+			maxRank = rank;
+			maxX = x;
+			maxY = y;
+		}
+		rank = getBorderRank(x, y);
+		if (0 <= rank && (d > borderDist || (d == borderDist && rank < borderRank))) {
+			borderDist = d;
+			borderRank = rank;
+			borderX = x;
+			borderY = y;
+		}
+	}
+	/**
+	 * Takes all cells into account that the given sweep considered.
+	 * @param other the sweep to merge into this one, not null
+	 */
+	void merge(DistanceSweep other) {
+		reached += other.reached;
+		if (other.maxDist > maxDist || (other.maxDist == maxDist && other.maxRank < maxRank)) {
+			maxDist = other.maxDist;
+			maxRank = other.maxRank;
+			maxX = other.maxX;
+			maxY = other.maxY;
+		}
+		if (other.borderDist > borderDist || (other.borderDist == borderDist && other.borderRank < borderRank)) {
+			borderDist = other.borderDist;
+			borderRank = other.borderRank;
+			borderX = other.borderX;
+			borderY = other.borderY;
+		}
+	}
+	/**
+	 * Gives the number of cells that have been considered.
+	 * @return number of cells
+	 */
+	int getReached() {
+		return reached;
+	}
+	/**
+	 * Gives the position with the maximum distance.
+	 * @return array of length 2 with {@code (x,y)=(array[0],array[1])}
+	 */
+	int[] getMaxPosition() {
+		return new int[] {maxX, maxY};
+	}
+	/**
+	 * Gives the position on the border with the maximum distance.
+	 * @return array of length 2 with {@code (x,y)=(array[0],array[1])}
+	 */
+	int[] getMaxPositionOnBorder() {
+		return new int[] {borderX, borderY};
+	}
+	/**
+	 * Gives the position of a cell on the border in the order in which
+	 * the full matrix scan in Distance first checks it.
+	 * That scan first goes over the top and bottom row
+	 * in an alternating manner and then over the left and right column.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return the rank of the cell, -1 if the cell is not on the border
+	 */
+	private int getBorderRank(int x, int y) {
+		if (0 == y)
+			return 2*x;
+		if (height-1 == y)
+			return 2*x + 1;
+		if (0 == x)
+			return 2*width + 2*y;
+		if (width-1 == x)
+			return 2*width + 2*y + 1;
+		return -1;
+	}
+}
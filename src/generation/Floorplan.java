@@ -45,6 +45,8 @@ import java.util.NoSuchElementException;
  * to set individual bits in a 4 byte/32 bit integer 
  * and thus error prone. The encapsulation within this class 
  * localizes all bit operations for this encoding.
+ * How the encoded values are laid out in memory is left to a cell store,
+ * see {@link Layout} for the available options.
  * 
  * This code is refactored code from Maze.java by Paul Falstad, www.falstad.com, Copyright (C) 1998, all rights reserved
  * Paul Falstad granted permission to modify and use code for teaching purposes.
@@ -88,50 +90,269 @@ public class Floorplan {
 	//west  = (-1,0)
 	//north = (0,-1)
 	
+	/**
+	 * Memory layouts that are available to store the cells of a floorplan.
+	 * JAGGED keeps one integer per cell in a two dimensional array, which is the original layout.
+	 * PACKED keeps one 16 bit char per cell in a single flat array in row-major order.
+	 * MAPPED keeps the same encoding as PACKED in a memory mapped temporary file
+	 * outside of the heap, which is meant for mazes whose cells do not fit into the heap,
+	 * builders still keep their working state and the BSP tree on the heap.
+	 * COPY_ON_WRITE keeps one 16 bit char per cell with an array per row
+	 * that can be shared between copies, which makes {@link #snapshot()} and
+	 * {@link #copy()} cheap.
+	 * The encoding of a single cell is the same for all layouts, so the choice only
+	 * affects memory consumption and access times.
+	 */
+	public enum Layout {JAGGED, PACKED, MAPPED, COPY_ON_WRITE};
+	/**
+	 * The layout that is used by constructors that do not specify a layout.
+	 * It can be changed to compare the performance of different layouts.
+	 */
+	private static Layout defaultLayout = Layout.JAGGED;
+	/**
+	 * The layout that is used for floorplans whose content is delivered as a snapshot,
+	 * which are the floorplans of maze builders for mazes below the out of heap threshold.
+	 * COPY_ON_WRITE makes the snapshot of a delivered maze cheap.
+	 * It can be changed to compare the performance of different layouts.
+	 */
+	private static Layout snapshotLayout = Layout.COPY_ON_WRITE;
+	
 	private int width;
 	private int height ;
-	private int[][] cells; // width x height array of cells, cells[width][height]
+	private final Layout layout; // memory layout for cells
+	private final CellStore cells; // width x height cells, organized according to layout
+	private long fingerprint; // Zobrist hash over all bits that are set in cells, see getFingerprint()
+	private final boolean immutable; // true for snapshots, which reject all changes
+	private volatile RoomIndex rooms; // areas of rooms for overlap checks, built on demand, see getRoomIndex()
 	// each cell contains an integer which encodes presence/absence of wallboards
-	// cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
+	// cells.get(i,j) can be read as (i,j) coordinates much like (x,y) coordinates
 	// where the first dimension x grows towards the right and 
 	// the second dimension y grows towards the bottom
 	// as if the (0,0) position is in the top-left corner.
-	// cells[i][j] is not intuitive in terms of rows and column indices in matrix notation 
-	// as position (i,j) would be column i and row j which is opposite to the normal  
-	// use of rows and columns indices for matrices.
 	
 	/**
-	 * Constructor
+	 * Constructor, uses the current default layout for the cells
 	 * @param w width, {@code 0 < w}
 	 * @param h height, {@code 0 < h}
 	 */
 	public Floorplan(int w, int h) {
+		this(w, h, defaultLayout);
+	}
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}
+	 * @param layout the memory layout for the cells, not null
+	 */
+	public Floorplan(int w, int h, Layout layout) {
 		width = w ;
 		height = h ;
-		cells = new int[w][h];
+		this.layout = layout;
+		cells = createCellStore(w, h, layout);
+		immutable = false;
+	}
+	/**
+	 * Constructor for a copy of the given floorplan.
+	 * @param original the floorplan to copy from, not null
+	 * @param cells the cells of the copy, same content as the cells of the original
+	 * @param immutable true if the copy rejects any changes, false otherwise
+	 */
+	private Floorplan(Floorplan original, CellStore cells, boolean immutable) {
+		width = original.width;
+		height = original.height;
+		layout = original.layout;
+		fingerprint = original.fingerprint;
+		this.cells = cells;
+		this.immutable = immutable;
 	}
 
 	/**
 	 * Constructor that dimensions and initializes cells with the values from the given matrix.
 	 * This constructor is useful to obtain a duplicate of a floorplan.
+	 * Cells are stored in the current default layout.
 	 * @param input provides input data to copy cell content from
 	 * precondition input != null
 	 */
 	public Floorplan(int[][] input){
-		// Alternative, 2d array is a 1d array with arrays as elements
 		width = input.length ;
 		height = input[0].length ;
-		cells = new int[width][];
-		for(int i = 0; i < width; i++)
-		    cells[i] = input[i].clone(); // clone row
-		/* Basic version
-		this(input.length, input[0].length);
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				cells[i][j] = input[i][j];
+		layout = defaultLayout;
+		immutable = false;
+		if (Layout.JAGGED == layout) {
+			// copies row by row
+			cells = new JaggedCellStore(input);
+			for (int i = 0; i < width; i++) {
+				for (int j = 0; j < height; j++) {
+					fingerprint ^= getZobristKeys(getCellIndex(i, j), input[i][j]);
+				}
 			}
 		}
-		*/
+		else {
+			cells = createCellStore(width, height, layout);
+			for (int i = 0; i < width; i++) {
+				for (int j = 0; j < height; j++) {
+					setCell(i, j, 0, input[i][j]); // new cell store is all zero
+				}
+			}
+		}
+	}
+	/**
+	 * Creates an empty cell store of the given dimensions and layout.
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 * @param layout the memory layout for the cells
+	 * @return cell store with all cells set to zero
+	 */
+	private static CellStore createCellStore(int w, int h, Layout layout) {
+		switch (layout) {
+		case JAGGED:
+			return new JaggedCellStore(w, h);
+		case PACKED:
+			return new PackedCellStore(w, h);
+		case MAPPED:
+			return new MappedCellStore(w, h);
+		case COPY_ON_WRITE:
+			return new CopyOnWriteCellStore(w, h);
+		default:
+			throw new RuntimeException("Unsupported value in enum type") ;
+		}
+	}
+	/**
+	 * Gets the layout that is used by constructors that do not specify a layout.
+	 * @return the current default layout
+	 */
+	public static Layout getDefaultLayout() {
+		return defaultLayout;
+	}
+	/**
+	 * Sets the layout that is used by constructors that do not specify a layout.
+	 * Existing floorplans keep their layout.
+	 * @param layout the new default layout, not null
+	 */
+	public static void setDefaultLayout(Layout layout) {
+		assert null != layout : "Default layout can not be null";
+		defaultLayout = layout;
+	}
+	/**
+	 * Gets the layout for floorplans whose content is delivered as a snapshot,
+	 * see {@link #snapshot()}.
+	 * @return the current layout for floorplans that deliver snapshots
+	 */
+	public static Layout getSnapshotLayout() {
+		return snapshotLayout;
+	}
+	/**
+	 * Sets the layout for floorplans whose content is delivered as a snapshot.
+	 * Existing floorplans keep their layout.
+	 * @param layout the new layout for floorplans that deliver snapshots, not null
+	 */
+	public static void setSnapshotLayout(Layout layout) {
+		assert null != layout : "Snapshot layout can not be null";
+		snapshotLayout = layout;
+	}
+	/**
+	 * Gets the memory layout of this floorplan.
+	 * @return the layout of the cells
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+	/**
+	 * Gives an immutable snapshot of the current content of this floorplan.
+	 * Later changes to this floorplan do not show in the snapshot
+	 * and any attempt to change the snapshot results in an 
+	 * UnsupportedOperationException. 
+	 * A snapshot can be shared between threads that read it 
+	 * without any locks, for example to generate, render and 
+	 * operate on a maze at the same time.
+	 * 
+	 * For the COPY_ON_WRITE layout, the snapshot shares the rows of cells
+	 * with this floorplan and takes time proportional to the height only,
+	 * for all other layouts the cells are copied.
+	 * The snapshot of a snapshot is the snapshot itself.
+	 * 
+	 * A snapshot of a floorplan that is still changed must be taken on the thread
+	 * that changes it, only the snapshot itself is safe to hand to other threads.
+	 * @return floorplan with the same content that can not be changed
+	 */
+	public Floorplan snapshot() {
+		return immutable ? this : new Floorplan(this, copyCells(), true);
+	}
+	/**
+	 * Gives a copy of this floorplan that can be changed independently.
+	 * For the COPY_ON_WRITE layout, the copy shares rows of cells
+	 * with this floorplan until either of them changes a row,
+	 * see {@link #snapshot()}.
+	 * Like a snapshot, the copy must be taken on the thread that changes this floorplan, if any.
+	 * @return floorplan with the same content and layout
+	 */
+	public Floorplan copy() {
+		return new Floorplan(this, copyCells(), false);
+	}
+	/**
+	 * Tells if this floorplan rejects all changes, which is the case
+	 * for snapshots.
+	 * @return true if immutable, false otherwise
+	 */
+	public boolean isImmutable() {
+		return immutable;
+	}
+	/**
+	 * Gives a copy of the cell store, shares rows where the layout allows for it.
+	 * @return copy of the cells
+	 */
+	private CellStore copyCells() {
+		if (Layout.COPY_ON_WRITE == layout)
+			return ((CopyOnWriteCellStore) cells).share();
+		final CellStore result = createCellStore(width, height, layout);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				result.set(x, y, cells.get(x, y));
+			}
+		}
+		return result;
+	}
+	/**
+	 * Gets the width of the floorplan.
+	 * @return the width, such that for any (x,y), {@code 0 <= x < width}
+	 */
+	public int getWidth() {
+		return width;
+	}
+	/**
+	 * Gets the height of the floorplan.
+	 * @return the height, such that for any (x,y), {@code 0 <= y < height}
+	 */
+	public int getHeight() {
+		return height;
+	}
+	/**
+	 * Packs the (x,y) coordinates of a cell into a single integer,
+	 * the index of the cell in row-major order.
+	 * A packed cell index avoids the allocation of an array
+	 * to pass a position around.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return cell index {@code y*width+x}
+	 */
+	public int getCellIndex(int x, int y) {
+		return y*width + x;
+	}
+	/**
+	 * Gets the x coordinate of a packed cell index.
+	 * @param cell index as obtained from {@link #getCellIndex(int, int)}
+	 * @return x coordinate of cell
+	 */
+	public int getCellX(int cell) {
+		return cell % width;
+	}
+	/**
+	 * Gets the y coordinate of a packed cell index.
+	 * @param cell index as obtained from {@link #getCellIndex(int, int)}
+	 * @return y coordinate of cell
+	 */
+	public int getCellY(int cell) {
+		return cell / width;
 	}
 	
 	/**
@@ -179,23 +400,40 @@ public class Floorplan {
 		final Floorplan o = (Floorplan)other ; // type cast safe after checking class objects
 		if ((width != o.width)||(height != o.height))
 			return false ;
+		// fingerprints differ for almost all floorplans that differ in content
+		if (fingerprint != o.fingerprint)
+			return false ;
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
-				if (cells[i][j] != o.cells[i][j])
+				if (cells.get(i, j) != o.cells.get(i, j))
 					return false ;
 			}
 		}
 		return true ;
 	}
 	/**
-	 * Hashcode method is not implemented as it is not needed here.
-	 * Dummy method to recognize common pitfall from overriding equals() but 
-	 * not hashcode() method.
+	 * Hashcode method that is consistent with equals and takes constant time,
+	 * it folds the fingerprint into an int.
 	 */
 	@Override
 	public int hashCode() {
-		  assert false : "hashCode not designed";
-		  return 42; // any arbitrary constant will do
+		final long result = getFingerprint();
+		return (int) (result ^ (result >>> 32));
+	}
+	/**
+	 * Gives a 64 bit fingerprint of the dimensions and content of the floorplan
+	 * in constant time. Floorplans that are equal have the same fingerprint,
+	 * floorplans that differ have the same fingerprint with negligible probability.
+	 * This makes the fingerprint suitable as a key for caches of floorplans.
+	 * 
+	 * The fingerprint is a Zobrist hash: each bit of each cell has a pseudo random key
+	 * and the hash is the exclusive or of the keys of all bits that are set.
+	 * It is updated with every change of a cell, so it never needs a scan
+	 * over all cells. The memory layout of the cells does not matter.
+	 * @return fingerprint of the floorplan
+	 */
+	public long getFingerprint() {
+		return fingerprint ^ mix64(((long) width << 32) | height);
 	}
 	/**
 	 * Get the value of a cell at the given position (x,y).
@@ -206,7 +444,7 @@ public class Floorplan {
 	 */
 	public int getValueOfCell( int x, int y )
 	{
-		return cells[x][y] ;
+		return cells.get(x, y) ;
 	}
 	
 	/**
@@ -220,9 +458,8 @@ public class Floorplan {
 	public boolean canTearDown(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wallboard.getDirection().getDx();
+		int dy = wallboard.getDirection().getDy();
 		// borders limit rooms (but for potential doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -241,9 +478,8 @@ public class Floorplan {
 	public boolean isPartOfBorder(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wallboard.getDirection().getDx();
+		int dy = wallboard.getDirection().getDy();
 		// borders limit rooms (but for potential doors) 
 		// and the outside limit of the maze
 		return hasBorder(x, y, dx, dy);
@@ -366,7 +602,11 @@ public class Floorplan {
 	 * @param y coordinate of cell, {@code 0 <= y < height}
 	 */
 	public void setInRoomToOne(int x, int y) {
+		final boolean added = !isInRoom(x, y);
 		setBitToOne(x, y, CW_IN_ROOM);
+		final RoomIndex index = rooms;
+		if (added && null != index)
+			index.add(x, y, x, y);
 	}
 	/**
 	 * Tells if the given position is inside a room.
@@ -399,15 +639,31 @@ public class Floorplan {
 		if (((startX < 0)||(startY < 0))||((stopX >= width)||(stopY >= height)))
 			return true ;
 		// check area
-		for (int x = startX; x <= stopX; x++)
-		{
-			for (int y = startY; y <= stopY; y++)
-			{
-				if (isInRoom(x, y))
-					return true ;
+		return getRoomIndex().overlaps(startX, startY, stopX, stopY);
+	}
+	/**
+	 * Gives the index of room areas, builds it from the room bits of all cells
+	 * if there is none yet, e.g. for a floorplan that was copied or read from a matrix.
+	 * @return the index of room areas
+	 */
+	private RoomIndex getRoomIndex() {
+		RoomIndex index = rooms;
+		if (null == index) {
+			index = new RoomIndex(width, height);
+			// add consecutive room cells of a row as a single area
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (!isInRoom(x, y))
+						continue;
+					final int start = x;
+					while (x+1 < width && isInRoom(x+1, y))
+						x++;
+					index.add(start, y, x, y);
+				}
 			}
+			rooms = index;
 		}
-		return false ;
+		return index;
 	}
 	/**
 	 * Marks a given area as a room on the maze and positions up to five doors randomly.
@@ -416,14 +672,17 @@ public class Floorplan {
 	 * The wallboards of a room are declared as borders to prevent the generation mechanism from tearing them down.
 	 * Of course there must be a few walls where doors can be created so the border protection is removed
 	 * for .
+	 * Doors are picked with the given random number generator, which is the room stream
+	 * of the order for a maze builder.
 	 * @param rw room width
 	 * @param rh room height
 	 * @param rx 1st corner, x coordinate
 	 * @param ry 1st corner, y coordinate
 	 * @param rxl 2nd corner, x coordinate
 	 * @param ryl 2nd corner, y coordinate
+	 * @param random the random number generator to pick doors with
 	 */
-	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl) {
+	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, SingleRandom random) {
 		// Step 1: 
 		// clear all cells in area of room from all wallboards and borders
 		// mark all cells in area as being inside the room
@@ -432,8 +691,11 @@ public class Floorplan {
 		for (x = rx; x <= rxl; x++)
 			for (y = ry; y <= ryl; y++) { 
 				setAllToZero(x, y);
-				setInRoomToOne(x, y);
+				setBitToOne(x, y, CW_IN_ROOM);
 			} 
+		final RoomIndex index = rooms;
+		if (null != index)
+			index.add(rx, ry, rxl, ryl);
 		// Step 2: set border flag at the perimeter
 		// this distinguishes these wallboards as special 
 		// and the mazebuilder algorithm can leave them in place
@@ -446,7 +708,6 @@ public class Floorplan {
 		// so a maze generation algorithm can identify
 		// these wallboards and delete them to get into the room
 		int numBoards = (rw+rh)*2; // counter for the total number of wallboards
-		SingleRandom random = SingleRandom.getRandom() ;
 		// pick at most 5 wallboards
 		for (int ct = 0; ct != 5; ct++) { 
 			int door = random.nextIntWithinInterval(0, numBoards-1); // pick a random wallboard
@@ -583,12 +844,13 @@ public class Floorplan {
 	public void addWallboard(Wallboard wallboard, boolean internalWall) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
+		int dx = wallboard.getDirection().getDx();
+		int dy = wallboard.getDirection().getDy();
 		// add wallboard on (x,y)
-		setWallToOne(x, y, d[0], d[1]);
+		setWallToOne(x, y, dx, dy);
 		// add same wallboard but for adjacent cell
 		if (internalWall)
-			setWallToOne(x+d[0], y+d[1], -d[0], -d[1]);
+			setWallToOne(x+dx, y+dy, -dx, -dy);
 	}
 
 	/**
@@ -603,9 +865,8 @@ public class Floorplan {
 	public void deleteWallboard(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wallboard.getDirection().getDx();
+		int dy = wallboard.getDirection().getDy();
 		// delete wallboard on (x,y)
 		setWallToZero(x, y, dx, dy);
 		// delete same wallboard but for adjacent cell
@@ -742,6 +1003,76 @@ public class Floorplan {
 			throw new RuntimeException("Unsupported value in enum type") ;
 		}
 	}
+	////////////////// sweep to access continuous sequences of wallboards //////////////////////////////////////////
+	/**
+	 * Delivers all maximal continuous sequences of wallboards, wall runs,
+	 * to the given visitor in a single sweep over the floorplan.
+	 * The runs are the same and come in the same order as with iterators 
+	 * for each row and column:
+	 * first row by row, North runs before South runs of the same row,
+	 * then column by column, West runs before East runs of the same column.
+	 * A run ends at a crossing wallboard, see {@link #iterator(int, int, CardinalDirection)}.
+	 * 
+	 * Each cell is read once per row and once per column,
+	 * no objects are allocated per run.
+	 * @param visitor receives the runs, not null
+	 */
+	public void visitWallRuns(WallRunVisitor visitor) {
+		// runs on the second side of a line are held back until the first side is done
+		final int[] pending = new int[2*Math.max(width, height)];
+		for (int y = 0; y < height; y++) {
+			int northStart = -1;
+			int southStart = -1;
+			int southRuns = 0;
+			for (int x = 0; x <= width; x++) {
+				final int value = (x < width) ? cells.get(x, y) : 0;
+				// a crossing wallboard on the west side ends any run
+				final boolean crossing = (value & CW_LEFT) != 0;
+				if (0 <= northStart && (crossing || (value & CW_TOP) == 0)) {
+					visitor.visitRun(CardinalDirection.North, y, northStart, x);
+					northStart = -1;
+				}
+				if (0 <= southStart && (crossing || (value & CW_BOT) == 0)) {
+					pending[southRuns++] = southStart;
+					pending[southRuns++] = x;
+					southStart = -1;
+				}
+				if (northStart < 0 && (value & CW_TOP) != 0)
+					northStart = x;
+				if (southStart < 0 && (value & CW_BOT) != 0)
+					southStart = x;
+			}
+			for (int i = 0; i < southRuns; i += 2) {
+				visitor.visitRun(CardinalDirection.South, y, pending[i], pending[i+1]);
+			}
+		}
+		for (int x = 0; x < width; x++) {
+			int westStart = -1;
+			int eastStart = -1;
+			int eastRuns = 0;
+			for (int y = 0; y <= height; y++) {
+				final int value = (y < height) ? cells.get(x, y) : 0;
+				// a crossing wallboard on the north side ends any run
+				final boolean crossing = (value & CW_TOP) != 0;
+				if (0 <= westStart && (crossing || (value & CW_LEFT) == 0)) {
+					visitor.visitRun(CardinalDirection.West, x, westStart, y);
+					westStart = -1;
+				}
+				if (0 <= eastStart && (crossing || (value & CW_RIGHT) == 0)) {
+					pending[eastRuns++] = eastStart;
+					pending[eastRuns++] = y;
+					eastStart = -1;
+				}
+				if (westStart < 0 && (value & CW_LEFT) != 0)
+					westStart = y;
+				if (eastStart < 0 && (value & CW_RIGHT) != 0)
+					eastStart = y;
+			}
+			for (int i = 0; i < eastRuns; i += 2) {
+				visitor.visitRun(CardinalDirection.East, x, pending[i], pending[i+1]);
+			}
+		}
+	}
 	////////////////// iterator to access continuous sequences of wallboards //////////////////////////////////////////
 	public Iterator<int[]> iterator(int x, int y, CardinalDirection cd) {
         return new SequenceIterator(x,y,cd);
@@ -907,7 +1238,8 @@ public class Floorplan {
 	 * @param cw_bit like CW_LEFT, CW_RIGHT, CW_TOP, CW_BOTTOM
 	 */
 	private void setBitToZero(int x, int y, int cw_bit) {
-		cells[x][y] &= ~cw_bit;
+		final int old = cells.get(x, y);
+		setCell(x, y, old, old & ~cw_bit);
 	}
 	/**
 	 * Sets all wallboard bits to zero for a given cell
@@ -924,10 +1256,10 @@ public class Floorplan {
 	// better to directly change client classes
 	//
 	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) != 0;
+		return (cells.get(x, y) & bitmask) != 0;
 	}
 	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) == 0;
+		return (cells.get(x, y) & bitmask) == 0;
 	}
 
 	/**
@@ -959,7 +1291,58 @@ public class Floorplan {
 	 * @param bitmask is the bitmask to use for adding 1's
 	 */
 	private void setBitToOne(int x, int y, int bitmask) {
-		cells[x][y] |= bitmask ;
+		final int old = cells.get(x, y);
+		setCell(x, y, old, old | bitmask) ;
+	}
+	/**
+	 * Sets the value of a cell and updates the fingerprint
+	 * with the keys of all bits that change.
+	 * All changes to cells must go through this method,
+	 * it rejects changes to snapshots.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param old the current value of the cell
+	 * @param value the new value of the cell
+	 */
+	private void setCell(int x, int y, int old, int value) {
+		if (immutable)
+			throw new UnsupportedOperationException("A snapshot of a floorplan can not be changed");
+		if (old != value) {
+			cells.set(x, y, value);
+			fingerprint ^= getZobristKeys(getCellIndex(x, y), old ^ value);
+			// the index only grows, so it is rebuilt if a cell leaves a room
+			if (0 != (old & ~value & CW_IN_ROOM))
+				rooms = null;
+		}
+	}
+	/**
+	 * Gives the exclusive or of the Zobrist keys for the given bits of a cell.
+	 * Keys are computed on demand rather than looked up in a table
+	 * as a table would be as large as the floorplan.
+	 * @param cell packed index of the cell
+	 * @param bits the bits of the cell, any value of a cell
+	 * @return combined key, 0 if no bits are given
+	 */
+	private static long getZobristKeys(int cell, int bits) {
+		long result = 0;
+		while (bits != 0) {
+			// 32 key slots per cell, one for each bit of an int
+			result ^= mix64(((long) cell << 5) + Integer.numberOfTrailingZeros(bits));
+			bits &= bits - 1; // clears lowest bit
+		}
+		return result;
+	}
+	/**
+	 * Scrambles the given value into a pseudo random 64 bit value,
+	 * uses the finalizer of the SplitMix64 generator.
+	 * @param z the value to scramble
+	 * @return a value that appears random
+	 */
+	private static long mix64(long z) {
+		z += 0x9E3779B97F4A7C15L; 
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 	///////////////// code for debugging ///////////////////////////////////////
@@ -977,7 +1360,7 @@ public class Floorplan {
 		{
 			prefix = " i:" + i + " j:";
 			for (int j = 0 ; j < height ; j++)
-				s += prefix + j + "=" + cells[i][j] ;
+				s += prefix + j + "=" + cells.get(i, j) ;
 			s += "\n" ;
 		}
 		return s ;
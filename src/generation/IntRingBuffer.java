@@ -0,0 +1,93 @@
+package generation;
+
+/**
+ * A first-in-first-out queue of primitive integers
+ * kept in a circular array that doubles its capacity when full.
+ * It avoids the boxing of a {@code java.util.Queue<Integer>}
+ * and is used for breadth-first traversals over packed cell indices.
+ *
+ * The class is not thread-safe.
+ */
+class IntRingBuffer {
+	private int[] elements; // capacity is always a power of two
+	private int head; // index of the next element to remove
+	private int size; // number of elements in the queue
+
+	/**
+	 * Constructor for an empty queue with a small initial capacity
+	 */
+	IntRingBuffer() {
+		this(16);
+	}
+	/**
+	 * Constructor for an empty queue
+	 * @param capacity the initial capacity, {@code 0 < capacity}
+	 */
+	IntRingBuffer(int capacity) {
+		elements = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+	}
+	/**
+	 * Tells if the queue has no elements.
+	 * @return true if empty, false otherwise
+	 */
+	boolean isEmpty() {
+		return 0 == size;
+	}
+	/**
+	 * Gives the number of elements in the queue.
+	 * @return number of elements
+	 */
+	int size() {
+		return size;
+	}
+	/**
+	 * Appends the given value at the end of the queue.
+	 * @param value the value to add
+	 */
+	void add(int value) {
+		if (size == elements.length)
+			grow();
+		elements[(head + size) & (elements.length - 1)] = value;
+		size++;
+	}
+	/**
+	 * Removes the element at the front of the queue.
+	 * @return the element that was added first
+	 * precondition !isEmpty()
+	 */
+	int remove() {
+		assert 0 < size : "Can not remove from an empty queue";
+		int result = elements[head];
+		head = (head + 1) & (elements.length - 1);
+		size--;
+		return result;
+	}
+	/**
+	 * Gives the element at the front of the queue without removing it.
+	 * @return the element that was added first
+	 * precondition !isEmpty()
+	 */
+	int peek() {
+		assert 0 < size : "Can not peek into an empty queue";
+		return elements[head];
+	}
+	/**
+	 * Removes all elements, the capacity is kept.
+	 */
+	void clear() {
+		head = 0;
+		size = 0;
+	}
+	/**
+	 * Doubles the capacity and moves the elements
+	 * to the front of the new array in queue order.
+	 */
+	private void grow() {
+		int[] larger = new int[elements.length << 1];
+		int firstPart = elements.length - head;
+		System.arraycopy(elements, head, larger, 0, firstPart);
+		System.arraycopy(elements, 0, larger, firstPart, head);
+		elements = larger;
+		head = 0;
+	}
+}
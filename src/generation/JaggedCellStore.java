@@ -0,0 +1,42 @@
+package generation;
+
+/**
+ * Cell store that keeps one integer per cell in a two dimensional
+ * array {@code cells[width][height]}.
+ * This is the original layout of the Floorplan class.
+ *
+ * cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
+ * where the first dimension x grows towards the right and
+ * the second dimension y grows towards the bottom
+ * as if the (0,0) position is in the top-left corner.
+ */
+class JaggedCellStore implements CellStore {
+	private final int[][] cells; // width x height array of cells, cells[width][height]
+
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 */
+	JaggedCellStore(int w, int h) {
+		cells = new int[w][h];
+	}
+	/**
+	 * Constructor that copies the content of the given matrix.
+	 * @param input provides input data to copy cell content from, not null
+	 */
+	JaggedCellStore(int[][] input) {
+		// 2d array is a 1d array with arrays as elements
+		cells = new int[input.length][];
+		for (int i = 0; i < input.length; i++)
+			cells[i] = input[i].clone(); // clone row
+	}
+	@Override
+	public int get(int x, int y) {
+		return cells[x][y];
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		cells[x][y] = value;
+	}
+}
@@ -0,0 +1,36 @@
+package generation;
+
+/**
+ * Cell store that keeps one 16 bit char per cell in row-major order
+ * in memory outside of the Java heap, i.e. cell (x,y) is located at
+ * byte offset {@code 2*(y*width+x)} of a {@link MappedStorage}.
+ *
+ * The encoding is the same as for the PackedCellStore but
+ * the number of cells is not limited by the heap size nor by
+ * the maximum length of a Java array. Pages are loaded on demand
+ * by the operating system, so memory is only used for parts of
+ * the floorplan that are actually accessed.
+ */
+class MappedCellStore implements CellStore {
+	private final int width;
+	private final MappedStorage cells; // width*height cells, row by row
+
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 */
+	MappedCellStore(int w, int h) {
+		width = w;
+		cells = new MappedStorage(2L*w*h, "floorplan");
+	}
+	@Override
+	public int get(int x, int y) {
+		return cells.getChar(2L*((long) y*width+x));
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		assert (value & ~0xFFFF) == 0 : "Value " + value + " does not fit into 16 bits";
+		cells.putChar(2L*((long) y*width+x), (char) value);
+	}
+}
@@ -0,0 +1,46 @@
+package generation;
+
+/**
+ * Distance store that keeps one integer per position in row-major order
+ * in memory outside of the Java heap, i.e. position (x,y) is located at
+ * byte offset {@code 4*(y*width+x)} of a {@link MappedStorage}.
+ * Next hops are kept in a second storage with one byte per position.
+ * It is the counterpart of the MappedCellStore for mazes
+ * whose distances do not fit into the heap.
+ */
+class MappedDistanceStore implements DistanceStore {
+	private final int width;
+	private final MappedStorage dists; // width*height distances, row by row
+	private final MappedStorage nextHops; // width*height next hops, row by row
+
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 */
+	MappedDistanceStore(int w, int h) {
+		width = w;
+		dists = new MappedStorage(4L*w*h, "distance");
+		nextHops = new MappedStorage((long) w*h, "nexthop");
+	}
+	@Override
+	public int get(int x, int y) {
+		return dists.getInt(4L*((long) y*width+x));
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		dists.putInt(4L*((long) y*width+x), value);
+	}
+	@Override
+	public boolean compareAndSet(int x, int y, int expected, int value) {
+		return dists.compareAndSetInt(4L*((long) y*width+x), expected, value);
+	}
+	@Override
+	public int getNextHop(int x, int y) {
+		return nextHops.getByte((long) y*width+x);
+	}
+	@Override
+	public void setNextHop(int x, int y, int hop) {
+		nextHops.putByte((long) y*width+x, (byte) hop);
+	}
+}
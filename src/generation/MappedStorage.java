@@ -0,0 +1,130 @@
+package generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A zero initialized block of memory outside of the Java heap.
+ * The block is backed by a temporary file that is mapped into memory
+ * such that the operating system loads pages on demand and can
+ * write them back to disk if physical memory gets short.
+ * The heap only holds a small number of buffer objects, one per region
+ * of {@code 1 << REGION_SHIFT} bytes, independent of the size of the block.
+ *
+ * The temporary file is deleted right after mapping where the platform
+ * supports this and otherwise on exit of the virtual machine.
+ * The mapped memory is released once the storage object is garbage collected.
+ *
+ * Offsets are byte offsets and must be aligned with the size of the
+ * accessed value, i.e. even for chars and a multiple of 4 for ints,
+ * such that a value never crosses the boundary of a region.
+ * No further parameter checks are performed as this class is used
+ * only internally to the package by cell and distance stores.
+ */
+class MappedStorage {
+	/**
+	 * Regions are mapped separately as a single MappedByteBuffer
+	 * is limited to {@code Integer.MAX_VALUE} bytes.
+	 */
+	static final int REGION_SHIFT = 30;
+	private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+	// view on a buffer as ints in the default byte order of buffers, supports atomic updates
+	private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private final MappedByteBuffer[] regions;
+
+	/**
+	 * Constructor
+	 * @param bytes the size of the block in bytes, {@code 0 <= bytes}
+	 * @param prefix the prefix for the name of the temporary file, at least three characters long
+	 */
+	MappedStorage(long bytes, String prefix) {
+		regions = new MappedByteBuffer[(int) ((bytes + REGION_MASK) >>> REGION_SHIFT)];
+		try {
+			File file = File.createTempFile(prefix, ".map");
+			file.deleteOnExit();
+			// setLength extends the file with zeros, typically as a sparse file
+			// so no disk space is used for pages that are never written to
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(bytes);
+				FileChannel channel = raf.getChannel();
+				for (int i = 0; i < regions.length; i++) {
+					long start = ((long) i) << REGION_SHIFT;
+					regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+							Math.min(REGION_MASK + 1, bytes - start));
+				}
+			}
+			// a mapping stays valid after its channel is closed and
+			// on most platforms also after its file is deleted
+			file.delete();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to map " + bytes + " bytes outside of the heap", e);
+		}
+	}
+	/**
+	 * Gets the 8 bit value at the given byte offset
+	 * @param offset byte offset
+	 * @return value at offset
+	 */
+	byte getByte(long offset) {
+		return regions[(int) (offset >>> REGION_SHIFT)].get((int) (offset & REGION_MASK));
+	}
+	/**
+	 * Sets the 8 bit value at the given byte offset
+	 * @param offset byte offset
+	 * @param value the new value
+	 */
+	void putByte(long offset, byte value) {
+		regions[(int) (offset >>> REGION_SHIFT)].put((int) (offset & REGION_MASK), value);
+	}
+	/**
+	 * Gets the 16 bit value at the given byte offset
+	 * @param offset byte offset, even
+	 * @return value at offset
+	 */
+	char getChar(long offset) {
+		return regions[(int) (offset >>> REGION_SHIFT)].getChar((int) (offset & REGION_MASK));
+	}
+	/**
+	 * Sets the 16 bit value at the given byte offset
+	 * @param offset byte offset, even
+	 * @param value the new value
+	 */
+	void putChar(long offset, char value) {
+		regions[(int) (offset >>> REGION_SHIFT)].putChar((int) (offset & REGION_MASK), value);
+	}
+	/**
+	 * Gets the 32 bit value at the given byte offset
+	 * @param offset byte offset, multiple of 4
+	 * @return value at offset
+	 */
+	int getInt(long offset) {
+		return regions[(int) (offset >>> REGION_SHIFT)].getInt((int) (offset & REGION_MASK));
+	}
+	/**
+	 * Sets the 32 bit value at the given byte offset
+	 * @param offset byte offset, multiple of 4
+	 * @param value the new value
+	 */
+	void putInt(long offset, int value) {
+		regions[(int) (offset >>> REGION_SHIFT)].putInt((int) (offset & REGION_MASK), value);
+	}
+	/**
+	 * Atomically sets the 32 bit value at the given byte offset
+	 * if it currently holds the expected value.
+	 * @param offset byte offset, multiple of 4
+	 * @param expected the expected current value
+	 * @param value the new value
+	 * @return true if the value was updated, false otherwise
+	 */
+	boolean compareAndSetInt(long offset, int expected, int value) {
+		return INT_VIEW.compareAndSet(regions[(int) (offset >>> REGION_SHIFT)], (int) (offset & REGION_MASK), expected, value);
+	}
+}
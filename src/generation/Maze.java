@@ -146,6 +146,17 @@ public interface Maze {
 	 * @return int array of length 2 with (x',y') coordinates for neighbor if exists, null otherwise
 	 */
 	public int[] getNeighborCloserToExit(int x, int y);
+	/**
+	 * Gives the direction towards the adjacent position that
+	 * {@link #getNeighborCloserToExit(int, int)} returns.
+	 * The direction is looked up in a precomputed table, so it takes 
+	 * constant time and does not allocate any objects, which makes it the
+	 * method of choice to follow the solution path step by step.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return the direction if a closer neighbor exists, null otherwise, e.g. at the exit position
+	 */
+	public CardinalDirection getDirectionCloserToExit(int x, int y);
 	/**
 	 * Provides coordinates (x,y) of the starting position for this maze.
 	 * Maze generation algorithms are expected to use the position
@@ -172,4 +183,38 @@ public interface Maze {
 	 * @return the exit position
 	 */	
 	public int[] getExitPosition();
+	/**
+	 * Provides the starting position as a packed cell index,
+	 * see {@link #getCellIndex(int, int)}. 
+	 * Unlike {@link #getStartingPosition()}, no array is involved.
+	 * @return cell index of the starting position
+	 */
+	public int getStartingCell();
+	/**
+	 * Provides the exit position as a packed cell index,
+	 * see {@link #getCellIndex(int, int)}.
+	 * Unlike {@link #getExitPosition()}, no array is involved.
+	 * @return cell index of the exit position
+	 */
+	public int getExitCell();
+	/**
+	 * Packs (x,y) coordinates into a single integer, a cell index.
+	 * Cell indices are in row-major order, i.e., {@code y*width+x}.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return cell index
+	 */
+	public int getCellIndex(int x, int y);
+	/**
+	 * Gives the x coordinate for a packed cell index.
+	 * @param cell index as obtained from {@link #getCellIndex(int, int)}
+	 * @return x coordinate, {@code 0 <= x < width}
+	 */
+	public int getCellX(int cell);
+	/**
+	 * Gives the y coordinate for a packed cell index.
+	 * @param cell index as obtained from {@link #getCellIndex(int, int)}
+	 * @return y coordinate, {@code 0 <= y < height}
+	 */
+	public int getCellY(int cell);
 }
@@ -1,5 +1,6 @@
 package generation;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import gui.Constants;
@@ -39,13 +40,37 @@ public class MazeBuilder implements Runnable {
 
 	// class internal local variables
 	protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
+	private SingleRandom roomRandom; // random number stream for the placement of rooms
+	private SingleRandom bspRandom; // random number stream for the BSP tree
 	Order order; // describes what is wanted, e.g. a perfect maze or not
 	
 	// constants
-	static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
 	static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
 	static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
 	static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
+	static final byte NO_DIRECTION = -1; // dfs: marks the starting cell that has no direction to backtrack to
+	/**
+	 * Mazes with at least this many cells keep their floorplan and distances in memory
+	 * mapped files outside of the heap, see {@link Floorplan.Layout#MAPPED}.
+	 * Only the cells and distances move out of the heap, heap use of a build
+	 * still grows with the size of the maze:
+	 * DFS keeps a byte per cell, Prim a bag of candidate wallboards,
+	 * Kruskal and Boruvka two edges per cell and a union-find,
+	 * Division two bytes per cell and Tiled the floorplans of all tiles.
+	 * Eller's algorithm only needs heap proportional to the width to generate pathways,
+	 * but builders that connect cells cut off by rooms use a union-find over all cells.
+	 * The BSP tree for rendering is kept on the heap for every builder and has
+	 * nodes for all walls of the maze.
+	 * Mazes in constant heap are only available as a stream of rows,
+	 * see {@link MazeBuilderEller#generateRows(int, int, int, RowSink)}.
+	 */
+	static final long OUT_OF_HEAP_THRESHOLD = 1L << 24;
+	/**
+	 * Maximum number of cells of a maze. Cells are numbered with int values in row-major order
+	 * and arrays hold at most one value per cell, so the limit is the largest array size.
+	 * Builders that keep more values per cell support fewer cells, see {@link #getMaxCells()}.
+	 */
+	static final long MAX_CELLS = Integer.MAX_VALUE - 8;
 
 	/**
 	 * Constructor for a randomized maze generation
@@ -58,21 +83,99 @@ public class MazeBuilder implements Runnable {
 	 * @param order provides the spec for the maze generation from
 	 */
 	public void buildOrder(Order order) {
-		this.order = order;
-		// configure and obtain the random number generator
-		SingleRandom.setSeed(order.getSeed());
-		random = SingleRandom.getRandom();
 		// derive parameters 
 		int skill = order.getSkillLevel() ;
-		width = Constants.SKILL_X[skill];
-		height = Constants.SKILL_Y[skill];
+		buildOrder(order, Constants.SKILL_X[skill], Constants.SKILL_Y[skill]);
+	}
+	/**
+	 * Sets internal fields according to given order but with the given
+	 * dimensions instead of the ones that correspond to the skill level.
+	 * This allows for mazes beyond the sizes supported by the skill levels.
+	 * Mazes with at least {@link #OUT_OF_HEAP_THRESHOLD} cells keep their
+	 * floorplan and distances in memory mapped files outside of the heap,
+	 * see {@link Floorplan.Layout#MAPPED}, while the builder itself and the BSP tree
+	 * still need heap that grows with the maze. All other mazes use the
+	 * layout of {@link Floorplan#getSnapshotLayout()}, COPY_ON_WRITE by default,
+	 * such that the delivered maze is a cheap snapshot of the floorplan.
+	 * Random numbers come from a stream of its own that is seeded with the seed
+	 * of the order, the single instance of SingleRandom is left as is,
+	 * so builders for different orders can work at the same time.
+	 * @param order provides the spec for the maze generation from
+	 * @param width the width of the maze, {@code 0 < width}
+	 * @param height the height of the maze, {@code 0 < height}
+	 */
+	public void buildOrder(Order order, int width, int height) {
+		buildOrder(order, width, height, SingleRandom.createIndependent(order.getSeed()));
+	}
+	/**
+	 * Sets internal fields according to given order
+	 * but draws random numbers from the given generator instead of
+	 * a generator that is seeded with the seed of the order.
+	 * @param order provides the spec for the maze generation from
+	 * @param random the random number generator to use
+	 */
+	void buildOrder(Order order, SingleRandom random) {
+		final int skill = order.getSkillLevel();
+		buildOrder(order, Constants.SKILL_X[skill], Constants.SKILL_Y[skill], random);
+	}
+	/**
+	 * Sets internal fields according to given order and dimensions
+	 * but draws random numbers from the given generator instead of
+	 * a generator that is seeded with the seed of the order.
+	 * The generator is split into independent streams for rooms,
+	 * pathways and the BSP tree, so changes to one phase do not
+	 * change the random decisions of the others.
+	 * @param order provides the spec for the maze generation from
+	 * @param width the width of the maze, {@code 0 < width}
+	 * @param height the height of the maze, {@code 0 < height}
+	 * @param random the random number generator to use
+	 */
+	void buildOrder(Order order, int width, int height, SingleRandom random) {
+		buildPathwaysOrder(order, width, height, random);
+		// derive parameters 
+		int skill = order.getSkillLevel() ;
 		// only algorithm without rooms guarantees a perfect maze
 		// rooms can result in loops, so for a perfect maze, set room number to 0
 		rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
 		expectedPartiters = Constants.SKILL_PARTCT[skill];
+		dists = new Distance(width, height, floorplan.getLayout()) ;
+	}
+	/**
+	 * Sets only the internal fields that {@link #generatePathways()} works with:
+	 * the order, the dimensions, the random number streams and an empty floorplan.
+	 * Distances are not allocated, which makes this a light setup for the tiles
+	 * of a larger maze, see {@link MazeBuilderTiled}.
+	 * The generator is split as for a full build, so the pathways are the same
+	 * no matter which setup is used.
+	 * Subclasses that derive fields from the order override this method.
+	 * @param order provides the spec for the maze generation from
+	 * @param width the width of the maze, {@code 0 < width}
+	 * @param height the height of the maze, {@code 0 < height}
+	 * @param random the random number generator to use
+	 */
+	void buildPathwaysOrder(Order order, int width, int height, SingleRandom random) {
+		if ((long) width * height > getMaxCells())
+			throw new IllegalArgumentException("Unsupported maze dimensions " + width + " x " + height 
+					+ ", at most " + getMaxCells() + " cells");
+		this.order = order;
+		roomRandom = random.split();
+		this.random = random.split();
+		bspRandom = random.split();
+		this.width = width;
+		this.height = height;
 		// instantiate data structures
-		floorplan = new Floorplan(width,height) ;
-		dists = new Distance(width,height) ;
+		// the snapshot layout is COPY_ON_WRITE unless changed, which makes the snapshot for delivery cheap
+		floorplan = ((long) width * height >= OUT_OF_HEAP_THRESHOLD) ?
+				new Floorplan(width, height, Floorplan.Layout.MAPPED) : 
+					new Floorplan(width, height, Floorplan.getSnapshotLayout()) ;
+	}
+	/**
+	 * Gives the maximum number of cells of a maze that this builder supports.
+	 * DFS keeps one byte per cell in an array.
+	 * @return the maximum number of cells, at most {@link #MAX_CELLS}
+	 */
+	long getMaxCells() {
+		return MAX_CELLS;
 	}
 	/**
 	 * Main method to run construction of a new maze in a thread of its own.
@@ -87,24 +190,28 @@ public class MazeBuilder implements Runnable {
 			if (rooms > 0)
 				generateRooms();
 			
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// put pathways into the maze, determine its starting and end position and calculate distances
 			generate();
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
-			final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
+			final int colchange = bspRandom.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
 			final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters) ;
 			BSPNode root = b.generateBSPNodes(); // takes a long time, updates progressbar, 
 			// it also internally checks for cancel requests
 			// and throws an interrupted exception if that happens
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// communicate results back to Controller
 			order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
-			order.deliver(new MazeContainer(width, height, floorplan, dists, root, startx, starty));
+			// readers of the delivered maze share an immutable snapshot, 
+			// mazes outside of the heap are too large to be copied
+			final Floorplan delivered = (Floorplan.Layout.MAPPED == floorplan.getLayout()) ? 
+					floorplan : floorplan.snapshot();
+			order.deliver(new MazeContainer(width, height, delivered, dists, root, startx, starty));
             // reset order and other fields for safe repeated operation and garbage collection
 			reset() ;
 		}
@@ -119,6 +226,16 @@ public class MazeBuilder implements Runnable {
 		}
 	}
 	
+	/**
+	 * Checks if the current thread has been interrupted, i.e. notified to stop,
+	 * without waiting as a call to Thread.sleep would do.
+	 * The interrupted status is cleared as with Thread.sleep.
+	 * @throws InterruptedException if the current thread has been interrupted
+	 */
+	static void checkInterrupted() throws InterruptedException {
+		if (Thread.interrupted())
+			throw new InterruptedException();
+	}
 	/**
 	 * Reset all fields to initial values
 	 */
@@ -168,19 +285,19 @@ public class MazeBuilder implements Runnable {
 	private boolean placeRoom() {
 		// get width and height of random size that are not too large
 		// if too large return as a failed attempt
-		final int rw = random.nextIntWithinInterval(MIN_ROOM_DIMENSION, MAX_ROOM_DIMENSION);
+		final int rw = roomRandom.nextIntWithinInterval(MIN_ROOM_DIMENSION, MAX_ROOM_DIMENSION);
 		if (rw >= width-4)
 			return false;
 
-		final int rh = random.nextIntWithinInterval(MIN_ROOM_DIMENSION, MAX_ROOM_DIMENSION);
+		final int rh = roomRandom.nextIntWithinInterval(MIN_ROOM_DIMENSION, MAX_ROOM_DIMENSION);
 		if (rh >= height-4)
 			return false;
 		
 		// proceed for a given width and height
 		// obtain a random position (rx,ry) such that room is located on as a rectangle with (rx,ry) and (rxl,ryl) as corner points
 		// upper bound is chosen such that width and height of room fits maze area.
-		final int rx = random.nextIntWithinInterval(1, width-rw-1);
-		final int ry = random.nextIntWithinInterval(1, height-rh-1);
+		final int rx = roomRandom.nextIntWithinInterval(1, width-rw-1);
+		final int ry = roomRandom.nextIntWithinInterval(1, height-rh-1);
 		final int rxl = rx+rw-1;
 		final int ryl = ry+rh-1;
 		// check all cells in this area if they already belong to a room
@@ -189,7 +306,7 @@ public class MazeBuilder implements Runnable {
 			return false ;
 		// since the area is available, mark it for this room and remove all wallboards
 		// from this on it is clear that we can place the room on the maze
-		floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl); 
+		floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, roomRandom);
 		return true;
 	}
 
@@ -222,6 +339,8 @@ public class MazeBuilder implements Runnable {
 	 * and what kind of comments are needed to understand code.
 	 * A previous version is kept below and commented out which is 
 	 * even worse than this one.
+	 * Directions are their ordinal values, the direction to backtrack
+	 * is kept in a byte per cell.
 	 */
 	protected void generatePathways() {
 		int x = random.nextIntWithinInterval(0, width-1);
@@ -229,40 +348,41 @@ public class MazeBuilder implements Runnable {
 		final int firstx = x; 
 		final int firsty = y;
 		
-		CardinalDirection[][] origcds = new CardinalDirection[width][height]; 
-		CardinalDirection cd = CardinalDirection.East;
-		CardinalDirection origcd = cd;
+		final byte[] origcds = new byte[width*height];
+		Arrays.fill(origcds, NO_DIRECTION);
+		int cd = CardinalDirection.East.ordinal();
+		int origcd = cd;
 		
 		floorplan.setCellAsVisited(x, y); 
-		Wallboard wallboard = new Wallboard(x, y, cd);
+		final Wallboard wallboard = new Wallboard(x, y, CardinalDirection.East);
 		while (true) { 
-			wallboard.setLocationDirection(x, y, cd);
+			wallboard.setLocationDirection(x, y, CardinalDirection.VALUES[cd]);
 			if (!floorplan.canTearDown(wallboard)) {
-				cd = cd.rotateClockwise();
+				cd = (cd + 1) & 3;
 				if (origcd == cd) {				
 					if (x == firstx && y == firsty)
 						break; 			
-					int[] dxy = origcds[x][y].getDxDyDirection();
-					x -= dxy[0];
-					y -= dxy[1];
-					if (null == origcds[x][y]) {
+					final CardinalDirection back = CardinalDirection.VALUES[origcds[y*width + x]];
+					x -= back.getDx();
+					y -= back.getDy();
+					final int origin = origcds[y*width + x];
+					if (NO_DIRECTION == origin) {
 						// Happens at starting position
-						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
-						cd = cd.randomDirection() ;
+						assert (x == firstx && y == firsty) : "catching missing direction elsewhere than starting position" ;
+						cd = random.nextIntWithinInterval(0, 3);
 					}
 					else
-						cd = origcds[x][y] ;
-					cd = cd.rotateClockwise();
+						cd = origin;
+					cd = (cd + 1) & 3;
 					origcd = cd;
 				}
 			} else {
 				floorplan.deleteWallboard(wallboard);
-				int[] dxy = cd.getDxDyDirection();
-				x += dxy[0];
-				y += dxy[1];
+				x += CardinalDirection.VALUES[cd].getDx();
+				y += CardinalDirection.VALUES[cd].getDy();
 				floorplan.setCellAsVisited(x, y);
-				origcds[x][y] = cd;
-				cd = cd.randomDirection();
+				origcds[y*width + x] = (byte) cd;
+				cd = random.nextIntWithinInterval(0, 3);
 				origcd = cd;
 			}
 		}
@@ -1,222 +1,226 @@
 package generation;
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Set;
+
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 
-/*   
-* @author Connor MacKinnon
-*/
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with Boruvka's algorithm for a minimum spanning tree.
+ * Cells are the nodes of a graph, wallboards that can be torn down are its edges
+ * and each edge has a unique pseudo random weight that is derived from a key drawn
+ * from the random stream of the order, so the same order always results in the same maze.
+ * In each round, every component of connected cells selects the cheapest edge
+ * that leads to another component and the wallboards of all selected edges are torn down.
+ * This at least halves the number of components per round.
+ * Since weights are unique, the selected edges never form a cycle and the
+ * result is a perfect maze unless rooms are present.
+ *
+ * Components are kept in a union-find structure and edges in primitive arrays,
+ * so a maze with V cells and E edges is built in O(E log V) time.
+ * Algorithm leaves wallboards in tact that carry the border flag.
+ *
+ * @author Connor MacKinnon
+ */
 public class MazeBuilderBoruvka extends MazeBuilder implements Runnable  {
-	HashMap <Integer, Integer> weight_map = new HashMap<>();
-	HashMap <Integer, ArrayList<Point>> clusterHashMap = new HashMap<>();
-	private static final Logger LOGGER = Logger.getLogger(MazeBuilderPrim.class.getName());
-	
-	
-	boolean first_time = true;
-	
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderBoruvka.class.getName());
+	/**
+	 * Weight for a position and direction that has no edge,
+	 * negative and thus different from the weight of any edge.
+	 */
+	static final int NO_EDGE = -1;
+	// weights are 31 bit values
+	private static final int WEIGHT_MASK = 0x7FFFFFFF;
+
+	private int key; // key for the weights of edges, drawn from the random stream of the order
+
 	/**
 	 * Constructor for MazeBuilderBoruvka
 	 */
 	public MazeBuilderBoruvka() {
 		super();
 		LOGGER.config("Using Boruvka's algorithm to generate maze.");
-		//Fills clusterHashmap with all coordinate points in the maze
-		//Each coordinate belongs to a unique group number (key)
-		//The value stored is an arraylist containing only the point
-		//an arraylist is used for later points to be added to groups
-		
 	}
-	
-	/**
-	 * Populates clusterHashmap with all coordinate points in the maze and
-	 * assigns unique group numbers.
-	 */
-	private void populator() {
-		int group = 1;
-		for(int x = 0; x < this.width; x++) {
-			for(int y = 0; y < this.height; y++) {
-				Point pointer = new Point(x,y);
-				ArrayList<Point> coordinates = new ArrayList<Point>();
-				coordinates.add(pointer);
-				clusterHashMap.put(group, coordinates);	
-				group++;
-			}
-		}
+
+	@Override
+	void buildPathwaysOrder(Order order, int width, int height, SingleRandom random) {
+		super.buildPathwaysOrder(order, width, height, random);
+		// the key comes from the stream of the order after the streams of the phases are split off,
+		// weights stay the same for the whole build
+		key = random.nextInt();
 	}
 
 	/**
-	 * Generates a random unique edge-weight that is then stored if an existing edge-weight doesn't exist.
-	 * It then returns this edge-weight.
+	 * Gives the weight of the edge between (x,y) and its neighbor in the given direction.
+	 * Both cells see the same weight for the wallboard between them and
+	 * the weight stays the same for repeated calls.
 	 * @param x Takes a coordinate x value
 	 * @param y Takes a coordinate y value
 	 * @param cd Takes a CardinalDirection type corresponding to the desired edge-weight
-	 * @return returns the weight of the edge at the specified coordinate and direction.
+	 * @return returns the weight of the edge at the specified coordinate and direction,
+	 * NO_EDGE if there is no neighbor or no wallboard in that direction.
 	 */
 	public int getEdgeWeight(int x, int y, CardinalDirection cd) {
-		int weight=(int)(Math.random()*400000);
-		if (this.floorplan.hasWall(x, y, cd)){
-			Wallboard tempWallboard = new Wallboard(x,y, cd);
-			Wallboard neighbor = new Wallboard(tempWallboard.getNeighborX(), tempWallboard.getNeighborY(), cd.oppositeDirection());
-			if (weight_map.containsKey(tempWallboard.hashCode())) {
-				return weight_map.get(tempWallboard.hashCode());
-			}
-			else if(weight_map.containsKey(neighbor.hashCode())) {			
-				return weight_map.get(neighbor.hashCode());				
-			}													
-			else {
-				while(weight_map.containsValue(weight)) {
-					weight=(int)(Math.random()*400000);
-				}
-				weight_map.put(tempWallboard.hashCode(), weight);
-			}
-			return weight;
-		}
-		else {
-			return 400001;
-		}
-		
+		final int edge = getEdge(x, y, cd);
+		if (edge < 0 || floorplan.hasNoWall(x, y, cd))
+			return NO_EDGE;
+		return getWeight(edge);
 	}
-	
+
 	/**
-	 * Finds the cardinal direction of the cheapest neighbor of (x,y).
-	 * Also checks that it is not obtaining a border value.
-	 * @param x Takes a coordinate x value
-	 * @param y Takes a coordinate y value
-	 * @Returns The cardinal direction pointing towards the cheapest edge of (x,y)
+	 * Gives the number of the edge between (x,y) and its neighbor in the given direction.
+	 * Each cell owns two edges, the one to its east and the one to its south, such that
+	 * the edge number is {@code 2*cell} for the east side and {@code 2*cell+1}
+	 * for the south side where {@code cell = y*width+x}.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @param cd the direction towards the neighbor
+	 * @return number of the edge, -1 if the neighbor would be outside of the maze
 	 */
-	private CardinalDirection cheapestNeighbor(int x, int y) {
-		HashMap <Integer, CardinalDirection> int_Dir = new HashMap<>();
-		int min = Integer.MAX_VALUE;
-		if ( y!=0 && min>getEdgeWeight(x, y, CardinalDirection.North)){
-			int_Dir.put(getEdgeWeight(x, y, CardinalDirection.North), CardinalDirection.North);
-			min = getEdgeWeight(x, y, CardinalDirection.North);
-		}
-		if ( x!=(this.width-1) && min>getEdgeWeight(x, y, CardinalDirection.East)){
-			int_Dir.put(getEdgeWeight(x, y, CardinalDirection.East), CardinalDirection.East);
-			min = getEdgeWeight(x, y, CardinalDirection.East);
-		}
-		if ( y!=(this.height-1) && min>getEdgeWeight(x, y, CardinalDirection.South)){
-			int_Dir.put(getEdgeWeight(x, y, CardinalDirection.South), CardinalDirection.South);
-			min = getEdgeWeight(x, y, CardinalDirection.South);
+	private int getEdge(int x, int y, CardinalDirection cd) {
+		switch (cd) {
+		case East:
+			return (x < width-1) ? 2*(y*width + x) : -1;
+		case South:
+			return (y < height-1) ? 2*(y*width + x) + 1 : -1;
+		case West:
+			return (0 < x) ? 2*(y*width + x-1) : -1;
+		case North:
+			return (0 < y) ? 2*((y-1)*width + x) + 1 : -1;
+		default:
+			throw new RuntimeException("Inconsistent enum type");
 		}
-		if ( x!=0 && min>getEdgeWeight(x, y, CardinalDirection.West)){
-			int_Dir.put(getEdgeWeight(x, y, CardinalDirection.West), CardinalDirection.West);
-			min = getEdgeWeight(x, y, CardinalDirection.West);
-		}
-		
-		
-		return int_Dir.get(min);
-		
 	}
-	
 	/**
-	 * Iterates through every key in clusterHashMap and checks if they contain the (x,y) coordinate.
-	 * @param x Takes a coordinate x value
-	 * @param y Takes a coordinate y value
-	 * @Returns The key/group/cluster number of the (x,y) coordinates
+	 * Gives the weight of an edge. The weight is a keyed hash of the edge number 
+	 * that is a bijection on 31 bit values: it adds the key and then applies
+	 * the steps of the MurmurHash3 finalizer, each of which is invertible modulo 2^31.
+	 * Different edges therefore always have different weights, 
+	 * without any table or rejection of values that are taken already.
+	 * @param edge the edge number, {@code 0 <= edge}
+	 * @return weight of the edge, {@code 0 <= weight}
 	 */
-	private int getGroupNumber(int x, int y){
-		if (first_time) {
-			first_time = false;
-			populator();
-		}
-		Point target = new Point(x, y);
-		Set<Integer> keys = clusterHashMap.keySet();
-		for (int key : keys) {
-			ArrayList<Point> pointlist = clusterHashMap.get(key);
-			for (Point iterator : pointlist) {
-				
-				if (iterator.equals(target)) {
-					return ((int)key);
-				}
-			}
-		}
-		assert(false) : "Error coordinate has no key (groupNumber)";
-		return -1;
+	int getWeight(int edge) {
+		int h = (edge + key) & WEIGHT_MASK;
+		h ^= h >>> 16;
+		h = (h * 0x85EBCA6B) & WEIGHT_MASK; // multiplication with an odd number
+		h ^= h >>> 13;
+		h = (h * 0xC2B2AE35) & WEIGHT_MASK;
+		h ^= h >>> 16;
+		return h;
 	}
-	
+
 	/**
-	 * Removes wall at the specified coordinates and direction. Also adds 
-	 * the new cell's cluster to the original cell's cluster which is stored in clusterHashMap.
-	 * the new cell's group is then deleted from the clusterHashmap.
-	 * 
-	 * This should not receive any inputs for borders of the maze.
-	 * 
-	 * @param x Takes a coordinate x value
-	 * @param y Takes a coordinate y value
-	 * @param cd Takes a CardinalDirection type corresponding to the desired edge to be removed
+	 * Edges are numbered with two values per cell.
+	 * @return the maximum number of cells
 	 */
-	private void wallDestroyer(int x, int y, CardinalDirection cd) {
-		int remove_key = -1;
-		Wallboard tempWallboard = new Wallboard(x,  y, cd);
-		int retain_key = getGroupNumber(x, y);
-		if (cd == CardinalDirection.North || cd == CardinalDirection.South){
-			remove_key  = getGroupNumber(x, tempWallboard.getNeighborY());
-		}
-		else if(cd == CardinalDirection.East || cd == CardinalDirection.West){
-			remove_key  = getGroupNumber(tempWallboard.getNeighborX(), y);
-		}
-		assert(remove_key != -1) : "Key was not found";
-		ArrayList<Point> oldValues = clusterHashMap.get(retain_key);	
-		ArrayList<Point> newValues = clusterHashMap.get(remove_key);
-		oldValues.addAll(newValues);
-		ArrayList<Point> noDupes = new ArrayList<Point>(); 
-        for (Point element : oldValues) { 
-            if (!noDupes.contains(element)) { 
-                noDupes.add(element); 
-            } 
-        } 
-		clusterHashMap.remove(remove_key);
-		clusterHashMap.put(retain_key, noDupes);
-		this.floorplan.deleteWallboard(tempWallboard);
-		
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/2;
 	}
-	
 	/**
-	 * This method generates the pathways by utilizing the other methods of MazeBuilderBoruvka.
-	 * This is done by first grouping the coordinates utilizing MazeBuilderBoruvka.cheapestNeighbor and removing walls between them.
-	 * These groups are then merged and regrouped together until a single group remains.
+	 * This method generates the pathways with Boruvka's algorithm.
+	 * Cells that are connected already, e.g. inside rooms, start out in the same component.
+	 * Rounds of merging components along their cheapest edges continue until a single
+	 * component remains or no wallboards are left that can be torn down.
 	 */
 	@Override
 	protected void generatePathways(){
-		HashMap <Point, CardinalDirection> marked = new HashMap<>();
-		for(int x = 0; x<this.width;x++) {
-			for(int y = 0; y<this.height;y++) {
-				Point newpoint = new Point(x,y);
-				CardinalDirection cd = cheapestNeighbor(x, y);
-				marked.put(newpoint, cd);
+		final int cells = width*height;
+		final UnionFind components = new UnionFind(cells);
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		// collect candidate edges, i.e. wallboards that can be torn down,
+		// and merge cells that have no wallboard in between
+		final int[] edges = new int[2*cells];
+		int size = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final int cell = y*width + x;
+				if (x < width-1)
+					size = addEdge(components, edges, size, wallboard, x, y, CardinalDirection.East, cell+1);
+				if (y < height-1)
+					size = addEdge(components, edges, size, wallboard, x, y, CardinalDirection.South, cell+width);
 			}
 		}
-		
-		for (Point point : marked.keySet()) {
-			wallDestroyer(point.x, point.y, marked.get(point));
-		}
-		HashMap <Point, CardinalDirection> groupMarked = new HashMap<>();
-		while(clusterHashMap.size() > 1){
-			for(int key : clusterHashMap.keySet()){	
-				if (clusterHashMap.get(key).size()>0) {
-					int min = Integer.MAX_VALUE;
-					Point bestPoint = null;
-					for(int x = 0; x<this.width;x++){
-						for(int y = 0; y<this.height;y++) {
-							if (getGroupNumber(x, y) == key  && (this.cheapestNeighbor(x, y) != null)) {
-								int cheapest = this.getEdgeWeight(x, y, this.cheapestNeighbor(x, y));
-								if(cheapest<min) {
-									min = cheapest;
-									bestPoint = new Point(x,y);
-								}
-							}
-						}
-					}
-					groupMarked.put(bestPoint, cheapestNeighbor(bestPoint.x,bestPoint.y));
+		// cheapest[root] is the cheapest edge that leaves the component of root, -1 if none
+		// minWeight[root] is its weight
+		final int[] cheapest = new int[cells];
+		final int[] minWeight = new int[cells];
+		while (1 < components.getCount()) {
+			Arrays.fill(cheapest, -1);
+			// find cheapest edge per component and drop edges inside of components
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				final int edge = edges[i];
+				final int a = components.find(edge >>> 1);
+				final int b = components.find(getOtherCell(edge));
+				if (a == b)
+					continue;
+				edges[kept++] = edge;
+				final int weight = getWeight(edge);
+				if (cheapest[a] < 0 || weight < minWeight[a]) {
+					cheapest[a] = edge;
+					minWeight[a] = weight;
+				}
+				if (cheapest[b] < 0 || weight < minWeight[b]) {
+					cheapest[b] = edge;
+					minWeight[b] = weight;
 				}
 			}
-			for (Point point : groupMarked.keySet()) {
-				wallDestroyer(point.x, point.y, groupMarked.get(point));
+			size = kept;
+			if (0 == size) {
+				LOGGER.warning("Boruvka: " + components.getCount() + " components can not be connected");
+				break;
+			}
+			// tear down wallboards of cheapest edges,
+			// an edge that is cheapest for both of its components is used once
+			for (int root = 0; root < cells; root++) {
+				final int edge = cheapest[root];
+				if (0 <= edge && components.union(edge >>> 1, getOtherCell(edge))) {
+					final int cell = edge >>> 1;
+					wallboard.setLocationDirection(cell % width, cell / width,
+							(0 == (edge & 1)) ? CardinalDirection.East : CardinalDirection.South);
+					floorplan.deleteWallboard(wallboard);
+				}
 			}
 		}
 	}
+	/**
+	 * Merges the cell and its neighbor into one component if there is no wallboard
+	 * between them, otherwise adds their edge to the candidates if the wallboard
+	 * can be torn down.
+	 * @param components the components of cells
+	 * @param edges the array of candidate edges
+	 * @param size the number of candidate edges
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction towards the neighbor, either East or South
+	 * @param neighbor the index of the neighbor cell
+	 * @return updated number of candidate edges
+	 */
+	private int addEdge(UnionFind components, int[] edges, int size, Wallboard wallboard,
+			int x, int y, CardinalDirection cd, int neighbor) {
+		if (floorplan.hasNoWall(x, y, cd)) {
+			components.union(y*width + x, neighbor);
+			return size;
+		}
+		wallboard.setLocationDirection(x, y, cd);
+		if (!floorplan.isPartOfBorder(wallboard))
+			edges[size++] = getEdge(x, y, cd);
+		return size;
+	}
+	/**
+	 * Gives the cell on the east or south side of an edge,
+	 * the cell on the west or north side is {@code edge >>> 1}.
+	 * @param edge the edge number
+	 * @return the index of the cell that does not own the edge
+	 */
+	int getOtherCell(int edge) {
+		return (edge >>> 1) + ((0 == (edge & 1)) ? 1 : width);
+	}
 }
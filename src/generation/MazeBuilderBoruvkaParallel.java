@@ -0,0 +1,215 @@
+package generation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with Boruvka's algorithm as in {@link MazeBuilderBoruvka}
+ * but each round is executed in parallel on the common ForkJoin pool.
+ * Cells are split into stripes of consecutive rows and each stripe owns
+ * the edges of its cells, i.e. their east and south wallboards.
+ * A round has three phases:
+ * 1. per stripe: drop edges inside of components and offer the remaining ones
+ * as the cheapest edge of both of their components with an atomic minimum,
+ * 2. per stripe: merge the components of the cheapest edges of the roots
+ * in the stripe with a concurrent union-find, the thread with the successful
+ * merge records the edge,
+ * 3. tear down the wallboards of all recorded edges in a single thread,
+ * as the floorplan is not thread-safe. There are less than width*height such
+ * wallboards over all rounds.
+ *
+ * Edge weights are unique and the same as for the serial builder, so the minimum
+ * spanning tree is unique and both builders deliver the same maze for the same order.
+ */
+public class MazeBuilderBoruvkaParallel extends MazeBuilderBoruvka {
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderBoruvkaParallel.class.getName());
+	/**
+	 * Minimum number of cells per stripe,
+	 * smaller stripes do not benefit from a task of their own.
+	 */
+	static final int MIN_STRIPE = 1024;
+	/**
+	 * Number of stripes per worker thread for large mazes,
+	 * more stripes than threads balance the load as components differ in size.
+	 */
+	static final int STRIPES_PER_THREAD = 4;
+	// marks a root without a cheapest edge, larger than any (weight, edge) pair
+	private static final long NONE = Long.MAX_VALUE;
+
+	/**
+	 * Constructor for MazeBuilderBoruvkaParallel
+	 */
+	public MazeBuilderBoruvkaParallel() {
+		super();
+		LOGGER.config("Using Boruvka's algorithm with parallel rounds to generate maze.");
+	}
+
+	/**
+	 * This method generates the pathways with parallel rounds of Boruvka's algorithm.
+	 */
+	@Override
+	protected void generatePathways() {
+		final int cells = width*height;
+		final int stripes = Math.max(1, Math.min(
+				ForkJoinPool.getCommonPoolParallelism() * STRIPES_PER_THREAD, cells / MIN_STRIPE));
+		// stripe s covers cells [first[s],first[s+1]) and edge slots [2*first[s],2*first[s+1])
+		// boundaries are at the beginning of a row
+		final int[] first = new int[stripes+1];
+		for (int s = 0; s <= stripes; s++) {
+			first[s] = (int) ((long) height * s / stripes) * width;
+		}
+		final ConcurrentUnionFind components = new ConcurrentUnionFind(cells);
+		final int[] edges = new int[2*cells];
+		final int[] sizes = new int[stripes]; // number of candidate edges per stripe
+		// cheapest[root] packs weight and number of the cheapest edge that leaves the component of root
+		final AtomicLongArray cheapest = new AtomicLongArray(cells);
+		// edges whose wallboards are torn down at the end of a round, per stripe
+		final int[][] selected = new int[stripes][];
+		final int[] selectedSizes = new int[stripes];
+		IntStream.range(0, stripes).parallel().forEach(s -> {
+			selected[s] = new int[first[s+1] - first[s]];
+			sizes[s] = collectEdges(components, cheapest, edges, first[s], first[s+1]);
+		});
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		while (1 < components.getCount()) {
+			// phase 1: offer edges as cheapest edges of their components
+			IntStream.range(0, stripes).parallel().forEach(s ->
+				sizes[s] = offerEdges(components, cheapest, edges, 2*first[s], sizes[s]));
+			if (0 == IntStream.of(sizes).sum()) {
+				LOGGER.warning("Boruvka: " + components.getCount() + " components can not be connected");
+				break;
+			}
+			// phase 2: merge components along their cheapest edges
+			IntStream.range(0, stripes).parallel().forEach(s ->
+				selectedSizes[s] = mergeComponents(components, cheapest, first[s], first[s+1], selected[s]));
+			// phase 3: tear down wallboards
+			for (int s = 0; s < stripes; s++) {
+				for (int i = 0; i < selectedSizes[s]; i++) {
+					final int cell = selected[s][i] >>> 1;
+					wallboard.setLocationDirection(cell % width, cell / width,
+							(0 == (selected[s][i] & 1)) ? CardinalDirection.East : CardinalDirection.South);
+					floorplan.deleteWallboard(wallboard);
+				}
+			}
+		}
+	}
+	/**
+	 * Collects the candidate edges of the cells in a stripe, i.e. wallboards that can be torn down,
+	 * and merges cells that have no wallboard in between. Only reads the floorplan.
+	 * @param components the components of cells
+	 * @param cheapest the cheapest edges per root, initialized for the stripe
+	 * @param edges the array of candidate edges, filled from position {@code 2*from} on
+	 * @param from the first cell of the stripe
+	 * @param to the first cell after the stripe
+	 * @return number of candidate edges of the stripe
+	 */
+	private int collectEdges(ConcurrentUnionFind components, AtomicLongArray cheapest, int[] edges, int from, int to) {
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		int size = 2*from;
+		for (int cell = from; cell < to; cell++) {
+			cheapest.set(cell, NONE);
+			final int x = cell % width;
+			final int y = cell / width;
+			if (x < width-1)
+				size = collectEdge(components, edges, size, wallboard, x, y, CardinalDirection.East);
+			if (y < height-1)
+				size = collectEdge(components, edges, size, wallboard, x, y, CardinalDirection.South);
+		}
+		return size - 2*from;
+	}
+	/**
+	 * Merges the cell and its neighbor into one component if there is no wallboard
+	 * between them, otherwise adds their edge to the candidates if the wallboard
+	 * can be torn down.
+	 * @param components the components of cells
+	 * @param edges the array of candidate edges
+	 * @param size the position for the next candidate edge
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction towards the neighbor, either East or South
+	 * @return updated position for the next candidate edge
+	 */
+	private int collectEdge(ConcurrentUnionFind components, int[] edges, int size, Wallboard wallboard,
+			int x, int y, CardinalDirection cd) {
+		final int cell = y*width + x;
+		final int edge = 2*cell + ((CardinalDirection.East == cd) ? 0 : 1);
+		if (floorplan.hasNoWall(x, y, cd)) {
+			components.union(cell, getOtherCell(edge));
+			return size;
+		}
+		wallboard.setLocationDirection(x, y, cd);
+		if (!floorplan.isPartOfBorder(wallboard))
+			edges[size++] = edge;
+		return size;
+	}
+	/**
+	 * Drops edges inside of components from a stripe and offers each remaining edge
+	 * as the cheapest edge of both of its components.
+	 * @param components the components of cells
+	 * @param cheapest the cheapest edges per root
+	 * @param edges the array of candidate edges
+	 * @param offset the position of the first edge of the stripe
+	 * @param size the number of candidate edges of the stripe
+	 * @return the number of remaining candidate edges, moved to the front of the stripe
+	 */
+	private int offerEdges(ConcurrentUnionFind components, AtomicLongArray cheapest, int[] edges, int offset, int size) {
+		int kept = offset;
+		for (int i = offset; i < offset + size; i++) {
+			final int edge = edges[i];
+			final int a = components.find(edge >>> 1);
+			final int b = components.find(getOtherCell(edge));
+			if (a == b)
+				continue;
+			edges[kept++] = edge;
+			// weights are non-negative and unique, so the pair orders like the weight
+			final long candidate = ((long) getWeight(edge) << 32) | edge;
+			offer(cheapest, a, candidate);
+			offer(cheapest, b, candidate);
+		}
+		return kept - offset;
+	}
+	/**
+	 * Atomically replaces the cheapest edge of a root if the candidate is cheaper.
+	 * @param cheapest the cheapest edges per root
+	 * @param root the root of the component
+	 * @param candidate weight and number of an edge
+	 */
+	private void offer(AtomicLongArray cheapest, int root, long candidate) {
+		long current = cheapest.get(root);
+		while (candidate < current && !cheapest.compareAndSet(root, current, candidate)) {
+			current = cheapest.get(root);
+		}
+	}
+	/**
+	 * Merges the components of the roots in a stripe with the components at the other end of
+	 * their cheapest edges and resets the cheapest edges for the next round.
+	 * @param components the components of cells
+	 * @param cheapest the cheapest edges per root
+	 * @param from the first cell of the stripe
+	 * @param to the first cell after the stripe
+	 * @param selected receives the edges that merged two components
+	 * @return number of edges in selected
+	 */
+	private int mergeComponents(ConcurrentUnionFind components, AtomicLongArray cheapest, int from, int to, int[] selected) {
+		int size = 0;
+		for (int root = from; root < to; root++) {
+			final long candidate = cheapest.get(root);
+			if (NONE == candidate)
+				continue;
+			cheapest.set(root, NONE);
+			final int edge = (int) candidate;
+			// an edge that is cheapest for both of its components merges them only once
+			if (components.union(edge >>> 1, getOtherCell(edge)))
+				selected[size++] = edge;
+		}
+		return size;
+	}
+}
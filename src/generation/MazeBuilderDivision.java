@@ -0,0 +1,168 @@
+package generation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with recursive division. A chamber is divided by a line
+ * across its shorter side with a single door in it, then both parts are divided
+ * in the same way until chambers are one cell wide.
+ * As the floorplan starts with all wallboards up, the algorithm works the other way round:
+ * it tears down the door of each line and all wallboards inside of the final chambers.
+ *
+ * Chambers do not share cells, so each one is an independent task on a ForkJoin pool.
+ * A task draws its random decisions from its own SplittableRandom that is split off
+ * the stream of its parent chamber, so the maze only depends on the seed of the order
+ * and not on the number of threads or the scheduling of tasks.
+ * Tasks only mark wallboards in a primitive array, as the floorplan is not thread-safe,
+ * and wallboards are torn down in a single thread afterwards.
+ *
+ * Chambers do not know about rooms, so wallboards that carry the border flag
+ * are left in tact and cells cut off by them are connected afterwards
+ * as in {@link MazeBuilderKruskal}.
+ */
+public class MazeBuilderDivision extends MazeBuilder implements Runnable {
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderDivision.class.getName());
+	/**
+	 * Chambers with fewer cells are divided in the task of their parent,
+	 * smaller chambers do not benefit from a task of their own.
+	 */
+	static final int MIN_TASK_CELLS = 4096;
+	// marks an edge whose wallboard is torn down, edge 2*cell is the east wallboard, 2*cell+1 the south wallboard
+	private static final byte OPEN = 1;
+
+	private final ForkJoinPool pool; // executes the chambers
+	private long seed; // seed for the random streams of chambers, drawn from the random stream of the order
+
+	/**
+	 * Constructor for MazeBuilderDivision, runs on the common ForkJoin pool
+	 */
+	public MazeBuilderDivision() {
+		this(ForkJoinPool.commonPool());
+	}
+	/**
+	 * Constructor for MazeBuilderDivision
+	 * @param pool the pool that executes the chambers
+	 */
+	MazeBuilderDivision(ForkJoinPool pool) {
+		super();
+		this.pool = pool;
+		LOGGER.config("Using recursive division to generate maze.");
+	}
+
+	@Override
+	void buildPathwaysOrder(Order order, int width, int height, SingleRandom random) {
+		super.buildPathwaysOrder(order, width, height, random);
+		// the chambers split their streams from a generator seeded from the stream of the order
+		// after the streams of the phases are split off
+		seed = random.nextLong();
+	}
+
+	/**
+	 * The state of the wallboards is kept with two values per cell.
+	 * @return the maximum number of cells
+	 */
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/2;
+	}
+	/**
+	 * This method generates pathways into the maze by recursive division
+	 * of the whole maze as a single chamber.
+	 */
+	@Override
+	protected void generatePathways() {
+		final byte[] edges = new byte[2*width*height];
+		pool.invoke(new Chamber(edges, 0, 0, width, height, new SplittableRandom(seed)));
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		boolean skipped = false;
+		for (int edge = 0; edge < edges.length; edge++) {
+			if (OPEN != edges[edge])
+				continue;
+			final int cell = edge >>> 1;
+			wallboard.setLocationDirection(cell % width, cell / width,
+					(0 == (edge & 1)) ? CardinalDirection.East : CardinalDirection.South);
+			if (floorplan.isPartOfBorder(wallboard))
+				skipped = true;
+			else
+				floorplan.deleteWallboard(wallboard);
+		}
+		if (skipped)
+			MazeBuilderKruskal.connectComponents(floorplan, random);
+	}
+
+	/**
+	 * A rectangular chamber of cells that is divided into two chambers
+	 * or opened up completely if it is one cell wide.
+	 */
+	private final class Chamber extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final byte[] edges; // torn down wallboards
+		private final int x, y; // top left cell
+		private final int w, h; // dimensions, at least 1
+		private final SplittableRandom random; // owned by this chamber
+
+		Chamber(byte[] edges, int x, int y, int w, int h, SplittableRandom random) {
+			this.edges = edges;
+			this.x = x;
+			this.y = y;
+			this.w = w;
+			this.h = h;
+			this.random = random;
+		}
+
+		@Override
+		protected void compute() {
+			if (1 == w || 1 == h) {
+				openCorridor();
+				return;
+			}
+			final Chamber first;
+			final Chamber second;
+			// divide across the shorter side to avoid long corridors
+			if (h > w || (h == w && random.nextBoolean())) {
+				// horizontal line below row y+line with a door in it
+				final int line = random.nextInt(h-1);
+				final int door = x + random.nextInt(w);
+				edges[2*((y+line)*width + door) + 1] = OPEN;
+				first = new Chamber(edges, x, y, w, line+1, random.split());
+				second = new Chamber(edges, x, y+line+1, w, h-line-1, random.split());
+			}
+			else {
+				// vertical line right of column x+line with a door in it
+				final int line = random.nextInt(w-1);
+				final int door = y + random.nextInt(h);
+				edges[2*(door*width + x+line)] = OPEN;
+				first = new Chamber(edges, x, y, line+1, h, random.split());
+				second = new Chamber(edges, x+line+1, y, w-line-1, h, random.split());
+			}
+			if (w*h < MIN_TASK_CELLS) {
+				first.compute();
+				second.compute();
+			}
+			else
+				invokeAll(first, second);
+		}
+		/**
+		 * Tears down all wallboards inside of a chamber that is one cell wide
+		 */
+		private void openCorridor() {
+			for (int j = y; j < y+h; j++) {
+				for (int i = x; i < x+w; i++) {
+					final int cell = j*width + i;
+					if (i < x+w-1)
+						edges[2*cell] = OPEN;
+					if (j < y+h-1)
+						edges[2*cell + 1] = OPEN;
+				}
+			}
+		}
+	}
+}
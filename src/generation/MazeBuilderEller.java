@@ -0,0 +1,214 @@
+package generation;
+
+import java.util.logging.Logger;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with Eller's algorithm which works row by row from top to bottom.
+ * Cells of the current row carry the label of the set of cells they are connected to.
+ * Neighbors in different sets are randomly joined by tearing down the wallboard between them,
+ * then each set randomly extends into the next row with at least one cell.
+ * The last row joins all remaining sets.
+ * Only the labels of the current row are kept, so the algorithm needs O(width) memory
+ * and hands each finished row to a {@link RowSink}, see
+ * {@link #generateRows(int, int, int, RowSink)} to stream mazes
+ * of practically unbounded height without a floorplan,
+ * for example to a file with a {@link RowFileSink}.
+ *
+ * As a builder, the sink tears down wallboards in the floorplan.
+ * Eller's sets do not know about rooms, so wallboards that carry the border flag
+ * are left in tact and cells cut off by them are connected afterwards
+ * as in {@link MazeBuilderKruskal}.
+ */
+public class MazeBuilderEller extends MazeBuilder implements Runnable {
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderEller.class.getName());
+
+	/**
+	 * Constructor for MazeBuilderEller
+	 */
+	public MazeBuilderEller() {
+		super();
+		LOGGER.config("Using Eller's algorithm to generate maze.");
+	}
+
+	/**
+	 * Cells cut off by rooms are connected along edges numbered with two values per cell.
+	 * @return the maximum number of cells
+	 */
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/2;
+	}
+	/**
+	 * This method generates pathways into the maze with Eller's algorithm
+	 * and tears down wallboards in the floorplan row by row.
+	 */
+	@Override
+	protected void generatePathways() {
+		final FloorplanSink sink = new FloorplanSink(floorplan);
+		generateRows(width, height, random, sink);
+		if (sink.hasSkippedWallboards())
+			MazeBuilderKruskal.connectComponents(floorplan, random);
+	}
+	/**
+	 * Generates a perfect maze with Eller's algorithm and hands it row by row to the sink.
+	 * Memory is O(width) and does not depend on the height.
+	 * The same seed always gives the same maze.
+	 * @param width the width of the maze, {@code 0 < width}
+	 * @param height the height of the maze, {@code 0 < height}
+	 * @param seed the seed for the random number generator
+	 * @param sink receives each finished row, from top to bottom
+	 */
+	public static void generateRows(int width, int height, int seed, RowSink sink) {
+		generateRows(width, height, SingleRandom.createIndependent(seed), sink);
+	}
+	/**
+	 * Generates a perfect maze with Eller's algorithm and hands it row by row to the sink
+	 * as {@link #generateRows(int, int, int, RowSink)} but draws random numbers
+	 * from the given generator.
+	 * @param width the width of the maze, {@code 0 < width}
+	 * @param height the height of the maze, {@code 0 < height}
+	 * @param random the source of randomness
+	 * @param sink receives each finished row, from top to bottom
+	 */
+	static void generateRows(int width, int height, SingleRandom random, RowSink sink) {
+		assert 0 < width && 0 < height : "Maze dimensions must be positive";
+		// labels are drawn from 0..2*width-1: at most width labels continue
+		// from the row above and at most width fresh ones are needed
+		final int labels = 2*width;
+		final int[] label = new int[width]; // set of each cell in current row
+		final int[] parent = new int[labels]; // union-find on labels, reset for each row
+		final int[] members = new int[labels]; // cells of a set in current row
+		final int[] candidate = new int[labels]; // cell of a set that surely extends downwards
+		final boolean[] extended = new boolean[labels]; // true if a set reaches the next row
+		final boolean[] eastWalls = new boolean[width];
+		final boolean[] southWalls = new boolean[width];
+		for (int x = 0; x < width; x++) {
+			label[x] = x;
+		}
+		for (int l = 0; l < labels; l++) {
+			parent[l] = l;
+		}
+		for (int y = 0; y < height; y++) {
+			final boolean last = (y == height-1);
+			// join neighbors of different sets, the last row joins all of them
+			for (int x = 0; x < width-1; x++) {
+				final int left = find(parent, label[x]);
+				final int right = find(parent, label[x+1]);
+				eastWalls[x] = (left == right || !(last || 0 == random.nextIntWithinInterval(0, 1)));
+				if (!eastWalls[x])
+					parent[right] = left;
+			}
+			eastWalls[width-1] = true;
+			if (last) {
+				for (int x = 0; x < width; x++) {
+					southWalls[x] = true;
+				}
+				sink.acceptRow(y, eastWalls, southWalls);
+				return;
+			}
+			for (int x = 0; x < width; x++) {
+				final int set = find(parent, label[x]);
+				label[x] = set;
+				members[set] = 0;
+				extended[set] = false;
+			}
+			// extend sets downwards at random, remember a uniformly chosen candidate per set
+			for (int x = 0; x < width; x++) {
+				final int set = label[x];
+				members[set]++;
+				if (0 == random.nextIntWithinInterval(0, members[set]-1))
+					candidate[set] = x;
+				southWalls[x] = (0 != random.nextIntWithinInterval(0, 1));
+				if (!southWalls[x])
+					extended[set] = true;
+			}
+			// every set must reach the next row or it would be cut off
+			for (int x = 0; x < width; x++) {
+				final int set = label[x];
+				if (!extended[set]) {
+					southWalls[candidate[set]] = false;
+					extended[set] = true;
+				}
+			}
+			sink.acceptRow(y, eastWalls, southWalls);
+			// next row: cells below an opening keep their label, others get a fresh one
+			for (int l = 0; l < labels; l++) {
+				parent[l] = l;
+				extended[l] = false;
+			}
+			for (int x = 0; x < width; x++) {
+				if (!southWalls[x])
+					extended[label[x]] = true;
+			}
+			int fresh = 0;
+			for (int x = 0; x < width; x++) {
+				if (southWalls[x]) {
+					while (extended[fresh])
+						fresh++;
+					label[x] = fresh++;
+				}
+			}
+		}
+	}
+	/**
+	 * Finds the representative of a label with path halving.
+	 * @param parent the parent of each label
+	 * @param label the label
+	 * @return the representative of the set of the label
+	 */
+	private static int find(int[] parent, int label) {
+		while (parent[label] != label) {
+			parent[label] = parent[parent[label]];
+			label = parent[label];
+		}
+		return label;
+	}
+
+	/**
+	 * A sink that tears down the wallboards of finished rows in a floorplan.
+	 * Wallboards that carry the border flag are left in tact.
+	 */
+	private static class FloorplanSink implements RowSink {
+		private final Floorplan floorplan;
+		private final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		private boolean skipped; // true if a wallboard could not be torn down
+
+		FloorplanSink(Floorplan floorplan) {
+			this.floorplan = floorplan;
+		}
+		@Override
+		public void acceptRow(int y, boolean[] eastWalls, boolean[] southWalls) {
+			for (int x = 0; x < eastWalls.length; x++) {
+				if (!eastWalls[x])
+					tearDown(x, y, CardinalDirection.East);
+				if (!southWalls[x])
+					tearDown(x, y, CardinalDirection.South);
+			}
+		}
+		/**
+		 * Tears down the wallboard unless it is part of a border
+		 * @param x coordinate of cell
+		 * @param y coordinate of cell
+		 * @param cd direction of the wallboard
+		 */
+		private void tearDown(int x, int y, CardinalDirection cd) {
+			wallboard.setLocationDirection(x, y, cd);
+			if (floorplan.isPartOfBorder(wallboard))
+				skipped = true;
+			else
+				floorplan.deleteWallboard(wallboard);
+		}
+		/**
+		 * Tells if any wallboard had to be left in tact.
+		 * @return true if cells may be cut off, false otherwise
+		 */
+		boolean hasSkippedWallboards() {
+			return skipped;
+		}
+	}
+}
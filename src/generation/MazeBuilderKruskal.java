@@ -0,0 +1,118 @@
+package generation;
+
+import java.util.logging.Logger;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with a randomized version of Kruskal's algorithm.
+ * Cells are the nodes of a graph and wallboards that can be torn down are its edges.
+ * Edges are considered in a random order and a wallboard is torn down
+ * if the cells on both sides are not connected yet.
+ * Components of connected cells are kept in a union-find structure and
+ * edges in a shuffled primitive array, so a maze with V cells and E edges
+ * is built in O(E alpha(V)) time, alpha being the inverse Ackermann function,
+ * without any objects per edge.
+ *
+ * Cells that are connected already, e.g. inside rooms, start out in the same component.
+ * Algorithm leaves wallboards in tact that carry the border flag.
+ */
+public class MazeBuilderKruskal extends MazeBuilder implements Runnable {
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderKruskal.class.getName());
+
+	/**
+	 * Constructor for MazeBuilderKruskal
+	 */
+	public MazeBuilderKruskal() {
+		super();
+		LOGGER.config("Using Kruskal's algorithm to generate maze.");
+	}
+
+	/**
+	 * Edges are numbered with two values per cell.
+	 * @return the maximum number of cells
+	 */
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/2;
+	}
+	/**
+	 * This method generates pathways into the maze by tearing down wallboards
+	 * in a random order unless they separate cells that are connected already.
+	 */
+	@Override
+	protected void generatePathways() {
+		connectComponents(floorplan, random);
+	}
+	/**
+	 * Tears down wallboards of the given floorplan in a random order
+	 * unless they separate cells that are connected already,
+	 * such that all cells end up in a single component.
+	 * Other builders use it to connect what is left over
+	 * after their own algorithm.
+	 * @param floorplan the floorplan to work on
+	 * @param random the source of randomness for the order of wallboards
+	 */
+	static void connectComponents(Floorplan floorplan, SingleRandom random) {
+		final int width = floorplan.getWidth();
+		final int height = floorplan.getHeight();
+		final int cells = width*height;
+		final UnionFind components = new UnionFind(cells);
+		// edge 2*cell is the east wallboard of a cell, edge 2*cell+1 its south wallboard
+		final int[] edges = new int[2*cells];
+		int size = 0;
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (x < width-1)
+					size = addEdge(floorplan, components, edges, size, wallboard, x, y, CardinalDirection.East);
+				if (y < height-1)
+					size = addEdge(floorplan, components, edges, size, wallboard, x, y, CardinalDirection.South);
+			}
+		}
+		// consider edges in random order, Fisher-Yates shuffle on the fly
+		for (int i = size-1; i >= 0 && 1 < components.getCount(); i--) {
+			final int j = random.nextIntWithinInterval(0, i);
+			final int edge = edges[j];
+			edges[j] = edges[i];
+			final int cell = edge >>> 1;
+			final boolean east = 0 == (edge & 1);
+			if (components.union(cell, cell + (east ? 1 : width))) {
+				wallboard.setLocationDirection(cell % width, cell / width,
+						east ? CardinalDirection.East : CardinalDirection.South);
+				floorplan.deleteWallboard(wallboard);
+			}
+		}
+	}
+	/**
+	 * Merges the cell and its neighbor into one component if there is no wallboard
+	 * between them, otherwise adds their edge to the candidates if the wallboard
+	 * can be torn down.
+	 * @param floorplan the floorplan to work on
+	 * @param components the components of cells
+	 * @param edges the array of candidate edges
+	 * @param size the number of candidate edges
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction towards the neighbor, either East or South
+	 * @return updated number of candidate edges
+	 */
+	private static int addEdge(Floorplan floorplan, UnionFind components, int[] edges, int size,
+			Wallboard wallboard, int x, int y, CardinalDirection cd) {
+		final int width = floorplan.getWidth();
+		final int cell = y*width + x;
+		final boolean east = CardinalDirection.East == cd;
+		if (floorplan.hasNoWall(x, y, cd)) {
+			components.union(cell, cell + (east ? 1 : width));
+			return size;
+		}
+		wallboard.setLocationDirection(x, y, cd);
+		if (!floorplan.isPartOfBorder(wallboard))
+			edges[size++] = 2*cell + (east ? 0 : 1);
+		return size;
+	}
+}
@@ -1,6 +1,5 @@
 package generation;
 
-import java.util.ArrayList;
 import java.util.logging.Logger;
 
 
@@ -31,6 +30,14 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		LOGGER.config("Using Prim's algorithm to generate maze.");
 	}
 
+	/**
+	 * Candidate wallboards pack a cell and a direction into a single int, see {@link RandomBag#pack}.
+	 * @return the maximum number of cells
+	 */
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/4;
+	}
 	/**
 	 * This method generates pathways into the maze by using Prim's algorithm to generate a spanning tree for an undirected graph.
 	 * The cells are the nodes of the graph and the spanning tree. An edge represents that one can move from one cell to an adjacent cell.
@@ -53,7 +60,7 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		
 		// Initialization: an MST of 1 cell with a non-empty set of wallboards
 		// around it that we could tear down to expand the MST
-		final ArrayList<Wallboard> candidates = initMST();
+		final RandomBag candidates = initMST();
 		assert(!candidates.isEmpty());
 		
 		// Expanding the MST till all cells are connected.
@@ -78,13 +85,14 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		// After termination, many cells will be marked as visited, but some cells
 		// inside a room may not be marked as such although they belong to the MST.
 		//
-		Wallboard curWallboard;
+		// candidates are packed into integers, a single wallboard object is reused
+		final Wallboard curWallboard = new Wallboard(0, 0, CardinalDirection.East);
 		// We need to consider each candidate wallboard and consider it only once
 		while(!candidates.isEmpty()){
 			// in order to have a randomized algorithm,
 			// we randomly select and extract a wallboard from our candidate set
 			// this also reduces the set to make sure we terminate the loop
-			curWallboard = extractWallboardFromCandidateSetRandomly(candidates);
+			extractWallboardFromCandidateSetRandomly(candidates, curWallboard);
 			// check if wallboard leads to a new cell that is not connected to the spanning tree yet
 			if (floorplan.canTearDown(curWallboard))
 			{
@@ -106,10 +114,11 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 	/**
 	 * Initialize the MST by randomly selecting a cell as the initial, incomplete MST and populate the list 
 	 * of candidate wallboards that could be removed to expand the tree.
-	 * @return a non-empty list of candidate wallboards to expand the MST
+	 * @return a non-empty set of candidate wallboards to expand the MST
 	 */
-	private ArrayList<Wallboard> initMST() {
-		final ArrayList<Wallboard> result = new ArrayList<Wallboard>();
+	private RandomBag initMST() {
+		// the set of candidates grows with the perimeter of the MST
+		final RandomBag result = new RandomBag(2*(width + height));
 		
 		
 		// create an initial list of all wallboards that could be removed
@@ -142,17 +151,19 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 	 * @param y the y coordinate of interest
 	 * @param candidates the new elements should be added to, must not be null
 	 */
-	protected void addCellToMST(int x, int y, final ArrayList<Wallboard> candidates) {
+	protected void addCellToMST(int x, int y, final RandomBag candidates) {
 		floorplan.setCellAsVisited(x, y); // the flag is never reset, so this ensure we never go to (x,y) again
 		updateListOfWallboards(x, y, candidates); // checks to see if it has wallboards to new cells, if it does it adds them to the list
 	}
 	/**
-	 * Pick a random position in the list of candidates, remove the candidate from the list and return it
-	 * @param candidates is the list of candidates to randomly remove a wall board from
-	 * @return candidate from the list, randomly chosen
+	 * Pick a random candidate, remove it from the set of candidates and store it in the given wallboard
+	 * @param candidates is the set of candidates to randomly remove a wall board from
+	 * @param wallboard is set to the candidate, randomly chosen
 	 */
-	private Wallboard extractWallboardFromCandidateSetRandomly(final ArrayList<Wallboard> candidates) {
-		return candidates.remove(random.nextIntWithinInterval(0, candidates.size()-1)); 
+	private void extractWallboardFromCandidateSetRandomly(final RandomBag candidates, final Wallboard wallboard) {
+		final int candidate = candidates.removeRandom(random);
+		final int cell = RandomBag.getCell(candidate);
+		wallboard.setLocationDirection(cell % width, cell / width, RandomBag.getDirection(candidate));
 	}
 	
 
@@ -165,15 +176,15 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 	 * @param y the y coordinate of interest
 	 * @param wallboards the new elements should be added to, must not be null
 	 */
-	private void updateListOfWallboards(int x, int y, ArrayList<Wallboard> wallboards) {
+	private void updateListOfWallboards(int x, int y, RandomBag wallboards) {
 		if (reusedWallboard == null) {
 			reusedWallboard = new Wallboard(x, y, CardinalDirection.East) ;
 		}
-		for (CardinalDirection cd : CardinalDirection.values()) {
+		for (CardinalDirection cd : CardinalDirection.VALUES) {
 			reusedWallboard.setLocationDirection(x, y, cd);
 			if (floorplan.canTearDown(reusedWallboard)) // 
 			{
-				wallboards.add(new Wallboard(x, y, cd));
+				wallboards.add(RandomBag.pack(y*width + x, cd));
 			}
 		}
 	}
@@ -0,0 +1,192 @@
+package generation;
+
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import generation.Order.Builder;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is split into square tiles of {@link #TILE_SIZE} cells per side,
+ * tiles at the right and bottom end may be smaller.
+ * Each tile is a perfect maze of its own, built by a builder of the given algorithm
+ * on a floorplan of the size of the tile. Tiles are independent, so they are built
+ * in parallel on the common ForkJoin pool, each with its own random number generator
+ * seeded from the random stream of the order, such that the maze does not depend on the number of threads.
+ * Tiles are then stitched together along a random spanning tree over the grid of tiles
+ * with one opening per edge of the tree. A spanning tree of spanning trees is
+ * a spanning tree, so the whole maze is perfect.
+ *
+ * Tiles do not know about rooms, so wallboards that carry the border flag
+ * are left in tact and cells cut off by them are connected afterwards
+ * as in {@link MazeBuilderKruskal}.
+ */
+public class MazeBuilderTiled extends MazeBuilder implements Runnable {
+	private static final Logger LOGGER = Logger.getLogger(MazeBuilderTiled.class.getName());
+	/**
+	 * Number of cells per side of a tile
+	 */
+	static final int TILE_SIZE = 64;
+	/**
+	 * Algorithm for tiles if the maze factory is asked for a tiled maze
+	 */
+	static final Builder DEFAULT_TILE_BUILDER = Builder.Kruskal;
+
+	private final Builder tileBuilder; // algorithm for tiles
+	private long seed; // seed for tiles and stitching, drawn from the random stream of the order
+	private boolean skipped; // true if a wallboard could not be torn down
+
+	/**
+	 * Constructor for MazeBuilderTiled
+	 * @param tileBuilder the algorithm to build each tile with, not Tiled itself
+	 */
+	public MazeBuilderTiled(Builder tileBuilder) {
+		super();
+		if (Builder.Tiled == tileBuilder)
+			throw new IllegalArgumentException("Unsupported algorithm for tiles: " + tileBuilder);
+		this.tileBuilder = tileBuilder;
+		LOGGER.config("Using tiles built with " + tileBuilder + " to generate maze.");
+	}
+
+	@Override
+	void buildPathwaysOrder(Order order, int width, int height, SingleRandom random) {
+		super.buildPathwaysOrder(order, width, height, random);
+		// tiles and stitching are seeded from the stream of the order
+		// after the streams of the phases are split off
+		seed = random.nextLong();
+	}
+
+	/**
+	 * Cells cut off by rooms are connected along edges numbered with two values per cell.
+	 * @return the maximum number of cells
+	 */
+	@Override
+	long getMaxCells() {
+		return MAX_CELLS/2;
+	}
+	/**
+	 * This method builds the tiles in parallel and stitches them together.
+	 */
+	@Override
+	protected void generatePathways() {
+		final int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+		final int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+		final int tiles = columns*rows;
+		// draw seeds in a fixed order before anything runs in parallel
+		final SplittableRandom stitching = new SplittableRandom(seed);
+		final int[] seeds = new int[tiles];
+		for (int t = 0; t < tiles; t++) {
+			seeds[t] = stitching.nextInt();
+		}
+		// the floorplan is not thread-safe, so tiles are copied in one thread
+		final Floorplan[] built = new Floorplan[tiles];
+		IntStream.range(0, tiles).parallel().forEach(t -> {
+			built[t] = buildTile(t % columns, t / columns, seeds[t]);
+		});
+		skipped = false;
+		final Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.East);
+		for (int t = 0; t < tiles; t++) {
+			copyTile(built[t], (t % columns)*TILE_SIZE, (t / columns)*TILE_SIZE, wallboard);
+			built[t] = null;
+		}
+		stitchTiles(columns, rows, stitching, wallboard);
+		if (skipped)
+			MazeBuilderKruskal.connectComponents(floorplan, random);
+	}
+	/**
+	 * Builds a perfect maze for a tile on a floorplan of its own
+	 * @param column the column of the tile in the grid of tiles
+	 * @param row the row of the tile in the grid of tiles
+	 * @param tileSeed the seed for the random number generator of the tile
+	 * @return the floorplan of the tile
+	 */
+	private Floorplan buildTile(int column, int row, int tileSeed) {
+		final int w = Math.min(TILE_SIZE, width - column*TILE_SIZE);
+		final int h = Math.min(TILE_SIZE, height - row*TILE_SIZE);
+		final MazeBuilder builder = MazeFactory.createBuilder(tileBuilder);
+		builder.buildPathwaysOrder(new DefaultOrder(order.getSkillLevel(), tileBuilder, true, tileSeed),
+				w, h, SingleRandom.createIndependent(tileSeed));
+		builder.floorplan.initialize();
+		builder.generatePathways();
+		return builder.floorplan;
+	}
+	/**
+	 * Tears down the wallboards inside of the maze that are down in the floorplan of a tile
+	 * @param tile the floorplan of the tile
+	 * @param left the x coordinate of the top left cell of the tile in the maze
+	 * @param top the y coordinate of the top left cell of the tile in the maze
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 */
+	private void copyTile(Floorplan tile, int left, int top, Wallboard wallboard) {
+		for (int y = 0; y < tile.getHeight(); y++) {
+			for (int x = 0; x < tile.getWidth(); x++) {
+				if (x < tile.getWidth()-1 && tile.hasNoWall(x, y, CardinalDirection.East))
+					tearDown(left + x, top + y, CardinalDirection.East, wallboard);
+				if (y < tile.getHeight()-1 && tile.hasNoWall(x, y, CardinalDirection.South))
+					tearDown(left + x, top + y, CardinalDirection.South, wallboard);
+			}
+		}
+	}
+	/**
+	 * Connects the tiles along a random spanning tree over the grid of tiles
+	 * with a randomly placed opening on the side that neighboring tiles share.
+	 * @param columns number of columns of tiles
+	 * @param rows number of rows of tiles
+	 * @param stitching the random number generator for the tree and the openings
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 */
+	private void stitchTiles(int columns, int rows, SplittableRandom stitching, Wallboard wallboard) {
+		final int tiles = columns*rows;
+		final UnionFind components = new UnionFind(tiles);
+		// edge 2*tile connects a tile with its east neighbor, edge 2*tile+1 with its south neighbor
+		final int[] edges = new int[2*tiles];
+		int size = 0;
+		for (int t = 0; t < tiles; t++) {
+			if (t % columns < columns-1)
+				edges[size++] = 2*t;
+			if (t / columns < rows-1)
+				edges[size++] = 2*t + 1;
+		}
+		// Kruskal's algorithm on the grid of tiles, Fisher-Yates shuffle on the fly
+		for (int i = size-1; i >= 0 && 1 < components.getCount(); i--) {
+			final int j = stitching.nextInt(i+1);
+			final int edge = edges[j];
+			edges[j] = edges[i];
+			final int tile = edge >>> 1;
+			final boolean east = 0 == (edge & 1);
+			if (!components.union(tile, tile + (east ? 1 : columns)))
+				continue;
+			final int left = (tile % columns)*TILE_SIZE;
+			final int top = (tile / columns)*TILE_SIZE;
+			if (east) {
+				// opening in the last column of the tile
+				final int h = Math.min(TILE_SIZE, height - top);
+				tearDown(left + TILE_SIZE - 1, top + stitching.nextInt(h), CardinalDirection.East, wallboard);
+			}
+			else {
+				// opening in the last row of the tile
+				final int w = Math.min(TILE_SIZE, width - left);
+				tearDown(left + stitching.nextInt(w), top + TILE_SIZE - 1, CardinalDirection.South, wallboard);
+			}
+		}
+	}
+	/**
+	 * Tears down the wallboard unless it is part of a border
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param cd direction of the wallboard
+	 * @param wallboard a wallboard to work with, its values are overwritten
+	 */
+	private void tearDown(int x, int y, CardinalDirection cd, Wallboard wallboard) {
+		wallboard.setLocationDirection(x, y, cd);
+		if (floorplan.isPartOfBorder(wallboard))
+			skipped = true;
+		else
+			floorplan.deleteWallboard(wallboard);
+	}
+}
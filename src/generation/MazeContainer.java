@@ -92,11 +92,11 @@ public class MazeContainer implements Maze {
 			"constructor for operational maze received faulty input!";
 	}
 	/**
-	 * @param width is the width of the maze, must conform with Constants.SKILL_X values
+	 * @param width is the width of the maze, at least the smallest of the Constants.SKILL_X values,
+	 * larger mazes than the ones for the skill levels are supported, see {@link MazeBuilder#buildOrder(Order, int, int)}
 	 */
 	public void setWidth(int width) {
-		assert(Constants.SKILL_X[0] <= width && 
-				width <= Constants.SKILL_X[Constants.SKILL_X.length-1]);
+		assert(Constants.SKILL_X[0] <= width);
 		this.width = width;
 	}
 	/**
@@ -108,12 +108,12 @@ public class MazeContainer implements Maze {
 		return width;
 	}
 	/**
-	 * @param height is the height of the maze, must conform with Constants.SKILL_Y values
+	 * @param height is the height of the maze, at least the smallest of the Constants.SKILL_Y values,
+	 * larger mazes than the ones for the skill levels are supported, see {@link MazeBuilder#buildOrder(Order, int, int)}
 	 */
 	public void setHeight(int height) {
 		// check if value is in range of values
-		assert(Constants.SKILL_Y[0] <= height && 
-				height <= Constants.SKILL_Y[Constants.SKILL_Y.length-1]);	
+		assert(Constants.SKILL_Y[0] <= height);
 		this.height = height;
 	}
 	/**
@@ -262,29 +262,24 @@ public class MazeContainer implements Maze {
 		// corner case, (x,y) is exit position
 		if (floorplan.isExitPosition(x, y))
 			return null;
-		// find best candidate
-		int dnext = getDistanceToExit(x, y) ;
-		int[] result = new int[2] ;
-		int[] dir;
-		for (CardinalDirection cd: CardinalDirection.values()) {
-			if (hasWall(x, y, cd)) 
-				continue; // there is a wallboard in the way
-			// no wallboard, let's check the distance
-			dir = cd.getDxDyDirection();
-			int dn = getDistanceToExit(x+dir[0], y+dir[1]);
-			if (dn < dnext) {
-				// update neighbor position with min distance
-				result[0] = x+dir[0] ;
-				result[1] = y+dir[1] ;
-				dnext = dn ;
-			}	
-		}
+		// the next hop table holds the best candidate
+		CardinalDirection cd = getDirectionCloserToExit(x, y);
 		// expectation: we found a neighbor that is closer
-		assert(getDistanceToExit(x, y) > dnext) : 
+		assert(null != cd) : 
 			"cannot identify direction towards solution: stuck at: " + x + ", "+ y ;
 		// since assert statements need not be executed, check it 
 		// to avoid giving back wrong result
-		return (getDistanceToExit(x, y) > dnext) ? result : null;
+		if (null == cd)
+			return null;
+		return new int[] {x+cd.getDx(), y+cd.getDy()};
+	}
+	@Override
+	public CardinalDirection getDirectionCloserToExit(int x, int y) {
+		assert isValidPosition(x,y) : "Invalid position";
+		// distances loaded from a file come without next hops
+		if (!mazedists.hasNextHops())
+			mazedists.computeNextHops(floorplan);
+		return mazedists.getDirectionCloserToExit(x, y);
 	}
 
 	/**
@@ -328,6 +323,29 @@ public class MazeContainer implements Maze {
 		assert(isOperational()) : "accessing content before object is fully initialized!";
 		return mazedists.getExitPosition();
 	}
+	@Override
+	public int getStartingCell() {
+		assert(isOperational()) : "accessing content before object is fully initialized!";
+		return floorplan.getCellIndex(start[0], start[1]);
+	}
+	@Override
+	public int getExitCell() {
+		assert(isOperational()) : "accessing content before object is fully initialized!";
+		int[] exit = mazedists.getExitPosition(); // cached by Distance, not allocated
+		return floorplan.getCellIndex(exit[0], exit[1]);
+	}
+	@Override
+	public int getCellIndex(int x, int y) {
+		return floorplan.getCellIndex(x, y);
+	}
+	@Override
+	public int getCellX(int cell) {
+		return floorplan.getCellX(cell);
+	}
+	@Override
+	public int getCellY(int cell) {
+		return floorplan.getCellY(cell);
+	}
 	/**
 	 * Checks if object is fully initialized and in a valid state.
 	 * The object creation relies on a sequence of set methods being called,
@@ -339,13 +357,12 @@ public class MazeContainer implements Maze {
 		if (fullyInitialized) {
 			return true; // was checked before
 		}
-		// check width and height, range of values determined by skill level
-		// Constants class
-		int last = Constants.SKILL_X.length-1;
-		if (!(Constants.SKILL_X[0] <= width && width <= Constants.SKILL_X[last])) {
+		// check width and height, lower bound determined by skill level
+		// Constants class, custom mazes can be larger than any skill level
+		if (!(Constants.SKILL_X[0] <= width)) {
 			return false;
 		}
-		if (!(Constants.SKILL_Y[0] <= height && height <= Constants.SKILL_Y[last])) {
+		if (!(Constants.SKILL_Y[0] <= height)) {
 			return false;
 		}
 		// check existence of cells, distances, bsp tree and starting position
@@ -44,24 +44,12 @@ public class MazeFactory implements Factory {
 		// idle, so accept order
 		currentOrder = order;
 		// set builder according to order
-		switch (order.getBuilder()) {
-		case DFS :
-			builder = new MazeBuilder();
-			buildOrder();
-			break;
-		case Prim:
-			builder = new MazeBuilderPrim();
-			buildOrder();
-			break;
-			
-		case Boruvka:
-			builder = new MazeBuilderBoruvka();
-			buildOrder();
-			break;
-		default:
+		builder = createBuilder(order.getBuilder());
+		if (null == builder) {
 			LOGGER.severe("Missing implementation for requested algorithm: " + order.getBuilder());
 			return false;
 		}
+		buildOrder();
 		return true ;
 	}
 	@Override
@@ -94,6 +82,33 @@ public class MazeFactory implements Factory {
 		currentOrder = null;
 	}
 	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Gives a new builder for the given algorithm
+	 * @param algorithm the requested builder algorithm
+	 * @return the matching builder, null if there is no implementation for the algorithm
+	 */
+	static MazeBuilder createBuilder(Order.Builder algorithm) {
+		switch (algorithm) {
+		case DFS :
+			return new MazeBuilder();
+		case Prim:
+			return new MazeBuilderPrim();
+		case Kruskal:
+			return new MazeBuilderKruskal();
+		case Eller:
+			return new MazeBuilderEller();
+		case Boruvka:
+			return new MazeBuilderBoruvka();
+		case BoruvkaParallel:
+			return new MazeBuilderBoruvkaParallel();
+		case Division:
+			return new MazeBuilderDivision();
+		case Tiled:
+			return new MazeBuilderTiled(MazeBuilderTiled.DEFAULT_TILE_BUILDER);
+		default:
+			return null;
+		}
+	}
 	/**
 	 * Provide the builder with necessary input and start its execution
 	 */
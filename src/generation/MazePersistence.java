@@ -0,0 +1,24 @@
+package generation;
+
+/**
+ * Specifies how mazes are written to and read from files,
+ * such that the file tier of a {@link CachingMazeFactory} does not depend
+ * on a particular file format.
+ * The gui package provides an implementation for its XML format.
+ */
+public interface MazePersistence {
+	/**
+	 * Reads a maze from the given file.
+	 * @param filename the name of the file
+	 * @return the maze, null if the file can not be read
+	 */
+	public Maze load(String filename) ;
+	/**
+	 * Writes a maze to the given file.
+	 * @param filename the name of the file
+	 * @param maze the maze with distances kept in an array
+	 * @param rooms the number of rooms of the maze
+	 * @param expectedPartiters the expected number of partition iterations of the maze
+	 */
+	public void store(String filename, Maze maze, int rooms, int expectedPartiters) ;
+}
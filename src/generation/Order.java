@@ -23,10 +23,14 @@ public interface Order {
 	Builder getBuilder() ;
 	/**
 	 * Lists all maze generation algorithms that are supported
-	 * by the maze factory (Eller needs to be implemented for P2)
+	 * by the maze factory,
+	 * Eller builds the maze row by row and can also stream rows without a floorplan,
+	 * BoruvkaParallel runs the rounds of Boruvka's algorithm in parallel,
+	 * Division divides the maze recursively into chambers that are built in parallel,
+	 * Tiled builds tiles of the maze in parallel and stitches them together
 	 *
 	 */
-	enum Builder {DFS, Prim, Kruskal, Eller, Boruvka};
+	enum Builder {DFS, Prim, Kruskal, Eller, Boruvka, BoruvkaParallel, Division, Tiled};
 	/**
 	 * Describes if the ordered maze should be perfect, i.e. there are 
 	 * no loops and no isolated areas, which also implies that 
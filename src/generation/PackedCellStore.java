@@ -0,0 +1,36 @@
+package generation;
+
+/**
+ * Cell store that keeps one 16 bit char per cell in a single flat
+ * array in row-major order, i.e. cell (x,y) is located at index
+ * {@code y*width+x}.
+ *
+ * The Floorplan encoding uses the lower 10 bits of an integer
+ * (CW_* wallboards, bounds, visited and room flags) so a char is
+ * sufficient and needs half the memory of an int.
+ * The flat array avoids the extra indirection and the per row
+ * object overhead of a two dimensional array.
+ */
+class PackedCellStore implements CellStore {
+	private final int width;
+	private final char[] cells; // width*height cells, row by row
+
+	/**
+	 * Constructor
+	 * @param w width, {@code 0 <= w}
+	 * @param h height, {@code 0 <= h}
+	 */
+	PackedCellStore(int w, int h) {
+		width = w;
+		cells = new char[w*h];
+	}
+	@Override
+	public int get(int x, int y) {
+		return cells[y*width+x];
+	}
+	@Override
+	public void set(int x, int y, int value) {
+		assert (value & ~0xFFFF) == 0 : "Value " + value + " does not fit into 16 bits";
+		cells[y*width+x] = (char) value;
+	}
+}
@@ -0,0 +1,187 @@
+package generation;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes distance values for a Distance object with a breadth-first
+ * search that processes one level at a time across the common ForkJoin pool.
+ *
+ * All cells of the current level, the frontier, have the same distance d.
+ * The frontier is split into chunks and each chunk is expanded by a task
+ * of its own into a frontier buffer of its own. A neighbor is claimed with an
+ * atomic compare-and-set from INFINITY to d+1, so each cell joins exactly
+ * one buffer. Once all tasks are done, the buffers are concatenated to form
+ * the next frontier.
+ *
+ * Since a cell gets the same value no matter which task claims it, and
+ * the sweeps of the tasks are merged in an order independent way,
+ * the results are the same as for the serial search in Distance.
+ *
+ * The floorplan is only read during the search, so it is safe to share it
+ * between tasks.
+ */
+class ParallelBreadthFirstSearch {
+	/**
+	 * Minimum number of frontier cells per task,
+	 * smaller levels do not benefit from more tasks.
+	 */
+	static final int MIN_CHUNK = 64;
+	/**
+	 * Number of tasks per worker thread for large levels,
+	 * more tasks than threads balance the load if chunks take different times.
+	 */
+	static final int TASKS_PER_THREAD = 4;
+
+	private final Floorplan cells;
+	private final DistanceStore dists;
+	private final int width;
+	private final int height;
+
+	/**
+	 * Constructor
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param dists the store for the distance values, can not be null
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 */
+	private ParallelBreadthFirstSearch(Floorplan cells, DistanceStore dists, int width, int height) {
+		this.cells = cells;
+		this.dists = dists;
+		this.width = width;
+		this.height = height;
+	}
+	/**
+	 * Sets all distance values to INFINITY and then computes
+	 * distances to the given position (ax,ay) for all cells.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param dists the store for the distance values, can not be null
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
+	 * @return information on the cells that have been reached
+	 */
+	static DistanceSweep search(Floorplan cells, DistanceStore dists, int width, int height, int ax, int ay) {
+		return new ParallelBreadthFirstSearch(cells, dists, width, height).search(ax, ay);
+	}
+	/**
+	 * Performs the search, see {@link #search(Floorplan, DistanceStore, int, int, int, int)}
+	 * @param ax, position, x coordinate
+	 * @param ay, position, y coordinate
+	 * @return information on the cells that have been reached
+	 */
+	private DistanceSweep search(int ax, int ay) {
+		reset();
+		final DistanceSweep result = new DistanceSweep(width, height);
+		dists.set(ax, ay, 1);
+		int[] frontier = {ay*width + ax};
+		int size = 1;
+		int d = 1;
+		final int maxTasks = Math.max(1, ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD);
+		while (0 < size) {
+			// split frontier into chunks, one task per chunk
+			final int tasks = Math.min(maxTasks, (size + MIN_CHUNK - 1) / MIN_CHUNK);
+			final LevelTask[] level = new LevelTask[tasks];
+			for (int i = 0; i < tasks; i++) {
+				level[i] = new LevelTask(frontier, (int) ((long) size*i/tasks), (int) ((long) size*(i+1)/tasks), d);
+			}
+			ForkJoinTask.invokeAll(level);
+			// collect results and concatenate frontier buffers
+			int nextSize = 0;
+			for (LevelTask task : level) {
+				result.merge(task.sweep);
+				nextSize += task.size;
+			}
+			final int[] next = new int[nextSize];
+			int pos = 0;
+			for (LevelTask task : level) {
+				System.arraycopy(task.next, 0, next, pos, task.size);
+				pos += task.size;
+			}
+			frontier = next;
+			size = nextSize;
+			d++;
+		}
+		return result;
+	}
+	/**
+	 * Sets all distance values to INFINITY, row by row in parallel
+	 */
+	private void reset() {
+		final int rowsPerTask = Math.max(1, (MIN_CHUNK * TASKS_PER_THREAD + width - 1) / Math.max(1, width));
+		final int tasks = (height + rowsPerTask - 1) / rowsPerTask;
+		final RecursiveAction[] fill = new RecursiveAction[tasks];
+		for (int i = 0; i < tasks; i++) {
+			final int from = i*rowsPerTask;
+			final int to = Math.min(height, from + rowsPerTask);
+			fill[i] = new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected void compute() {
+					for (int y = from; y < to; y++) {
+						for (int x = 0; x < width; x++) {
+							dists.set(x, y, Distance.INFINITY);
+						}
+					}
+				}
+			};
+		}
+		ForkJoinTask.invokeAll(fill);
+	}
+
+	/**
+	 * Expands a chunk of the frontier by one level.
+	 */
+	private class LevelTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] frontier;
+		private final int from; // first index in frontier, inclusive
+		private final int to; // last index in frontier, exclusive
+		private final int d; // distance of cells in frontier
+		// results
+		private final DistanceSweep sweep = new DistanceSweep(width, height);
+		private int[] next; // frontier buffer for the next level
+		private int size; // number of cells in next
+
+		LevelTask(int[] frontier, int from, int to, int d) {
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.d = d;
+			next = new int[Math.max(4, to - from)];
+		}
+		@Override
+		protected void compute() {
+			for (int i = from; i < to; i++) {
+				final int x = frontier[i] % width;
+				final int y = frontier[i] / width;
+				sweep.consider(x, y, d);
+				final int walls = cells.getValueOfCell(x, y);
+				if ((walls & Floorplan.CW_TOP) == 0 && 0 < y)
+					visit(x, y-1);
+				if ((walls & Floorplan.CW_RIGHT) == 0 && x < width-1)
+					visit(x+1, y);
+				if ((walls & Floorplan.CW_BOT) == 0 && y < height-1)
+					visit(x, y+1);
+				if ((walls & Floorplan.CW_LEFT) == 0 && 0 < x)
+					visit(x-1, y);
+			}
+		}
+		/**
+		 * Claims the cell at (x,y) for the next level if no other task did so before.
+		 * @param x coordinate of cell, {@code 0 <= x < width}
+		 * @param y coordinate of cell, {@code 0 <= y < height}
+		 */
+		private void visit(int x, int y) {
+			// cheap check first to avoid the atomic operation for visited cells
+			if (dists.get(x, y) == Distance.INFINITY && dists.compareAndSet(x, y, Distance.INFINITY, d+1)) {
+				if (size == next.length)
+					next = Arrays.copyOf(next, 2*size);
+				next[size++] = y*width + x;
+			}
+		}
+	}
+}
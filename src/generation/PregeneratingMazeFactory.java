@@ -0,0 +1,337 @@
+package generation;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+import generation.Order.Builder;
+
+/**
+ * A maze factory that builds mazes speculatively in the background
+ * such that a game can start without waiting for its maze.
+ *
+ * The factory keeps a few ready mazes for each of the recently ordered combinations
+ * of skill level, builder algorithm and perfect flag. Each ready maze has a seed
+ * of its own, a client asks for it with {@link #nextSeed(int, Builder, boolean)}
+ * before it places an order. An order with the seed of a ready maze is delivered
+ * right away on the calling thread, any other order is built in the foreground
+ * by a {@link ConcurrentMazeFactory} with a single worker.
+ *
+ * Speculative builds run one at a time on a daemon thread of minimum priority.
+ * While an order is in progress in the foreground, the thread does not start a new build
+ * and a running build pauses at its next progress update,
+ * such that the CPU is free for the maze the user waits for.
+ * An order is no longer in progress once it is delivered, cancelled or failed.
+ */
+public class PregeneratingMazeFactory implements Factory {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(PregeneratingMazeFactory.class.getName());
+	/**
+	 * Upper bound (exclusive) for the seeds of speculative mazes
+	 */
+	public static final int SEED_BOUND = 100000;
+
+	private final ConcurrentMazeFactory factory; // builds orders without a ready maze in the foreground
+	private final int mazesPerKind; // number of ready mazes per kind of maze
+	private final int kinds; // number of recently ordered kinds of mazes to pregenerate
+	private final ExecutorService worker; // single low priority thread for speculative builds
+	private final SplittableRandom seeds = new SplittableRandom(); // seeds for speculative builds
+	// speculative builds per kind in the order of use, least recently used kind first
+	private final LinkedHashMap<Kind, ArrayDeque<Speculation>> pool = new LinkedHashMap<>(16, 0.75f, true);
+	private int busy; // number of orders in progress in the foreground
+	private long hits; // orders delivered from ready mazes
+	private long misses; // orders handed to the other factory
+
+	//////////////////////// Constructor ////////////////////////////////////////
+	/**
+	 * Constructor for one ready maze for each of the 3 most recently ordered kinds of mazes
+	 */
+	public PregeneratingMazeFactory() {
+		this(1, 3);
+	}
+	/**
+	 * Constructor
+	 * @param mazesPerKind number of ready mazes per kind of maze, {@code 0 < mazesPerKind}
+	 * @param kinds number of recently ordered kinds of mazes to pregenerate, {@code 0 < kinds}
+	 */
+	public PregeneratingMazeFactory(int mazesPerKind, int kinds) {
+		if (mazesPerKind < 1 || kinds < 1)
+			throw new IllegalArgumentException("Unsupported number of mazes or kinds: " + mazesPerKind + ", " + kinds);
+		factory = new ConcurrentMazeFactory(1, 0);
+		this.mazesPerKind = mazesPerKind;
+		this.kinds = kinds;
+		worker = Executors.newSingleThreadExecutor(task -> {
+			final Thread thread = new Thread(task, "maze-pregeneration");
+			thread.setPriority(Thread.MIN_PRIORITY);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	//////////////////////// Factory interface //////////////////////////////////
+	@Override
+	public boolean order(Order order) {
+		final Kind kind = new Kind(order.getSkillLevel(), order.getBuilder(), order.isPerfect());
+		final Maze maze = take(kind, order.getSeed());
+		if (null != maze) {
+			order.updateProgress(100);
+			order.deliver(maze);
+			replenish(kind);
+			return true;
+		}
+		synchronized (this) {
+			busy++;
+		}
+		final CompletableFuture<Maze> result = factory.offer(order);
+		if (null == result) {
+			resume(kind);
+			return false;
+		}
+		// completes when delivered, cancelled or failed
+		result.whenComplete((delivered, failure) -> resume(kind));
+		return true;
+	}
+	@Override
+	public void cancel() {
+		factory.cancel();
+	}
+	@Override
+	public void waitTillDelivered() {
+		factory.waitTillDelivered();
+		// the foreground worker may still be about to let speculative builds continue
+		try {
+			pause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	//////////////////////// public methods /////////////////////////////////////
+	/**
+	 * Gives the seed for the next order of the given kind of maze.
+	 * It is the seed of a ready maze if there is one, a new random seed otherwise.
+	 * @param skillLevel the skill level of the order
+	 * @param builder the builder algorithm of the order
+	 * @param perfect the perfect flag of the order
+	 * @return a seed in {@code [0, SEED_BOUND)}
+	 */
+	public synchronized int nextSeed(int skillLevel, Builder builder, boolean perfect) {
+		final ArrayDeque<Speculation> speculations = pool.get(new Kind(skillLevel, builder, perfect));
+		if (null != speculations) {
+			for (Speculation speculation : speculations) {
+				if (null != speculation.ready)
+					return speculation.getSeed();
+			}
+			if (!speculations.isEmpty())
+				return speculations.peekFirst().getSeed();
+		}
+		return seeds.nextInt(SEED_BOUND);
+	}
+	/**
+	 * Gives the number of orders that were delivered from ready mazes.
+	 * @return number of hits
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	/**
+	 * Gives the number of orders that were handed to the other factory.
+	 * @return number of misses
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	/**
+	 * Stops the speculative builds and the foreground worker after cancelling
+	 * orders that are not completed yet. The factory takes no more orders.
+	 */
+	public void shutdown() {
+		worker.shutdownNow();
+		factory.shutdown();
+	}
+
+	///////////////////////// package private methods ///////////////////////////
+	/**
+	 * Waits till all speculative builds that are scheduled so far are done.
+	 * This method is helpful for testing.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	void waitTillPregenerated() throws InterruptedException {
+		try {
+			worker.submit(() -> { }).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Takes the ready maze of the given kind and seed out of the pool.
+	 * A speculative build for it that is not done yet is cancelled
+	 * as the other factory builds it faster.
+	 * @param kind the kind of maze of the order
+	 * @param seed the seed of the order
+	 * @return the ready maze, null if there is none
+	 */
+	private synchronized Maze take(Kind kind, int seed) {
+		final ArrayDeque<Speculation> speculations = use(kind);
+		Maze maze = null;
+		for (Iterator<Speculation> it = speculations.iterator(); it.hasNext(); ) {
+			final Speculation speculation = it.next();
+			if (seed == speculation.getSeed()) {
+				it.remove();
+				maze = speculation.ready;
+				if (null == maze)
+					speculation.task.cancel(true);
+				break;
+			}
+		}
+		if (null == maze)
+			misses++;
+		else
+			hits++;
+		return maze;
+	}
+	/**
+	 * Gives the speculative builds for the given kind of maze and marks the kind as recently used.
+	 * The least recently used kinds beyond the given number of kinds are dropped
+	 * and their speculative builds are cancelled.
+	 * @param kind the kind of maze
+	 * @return the speculative builds for the kind
+	 */
+	private synchronized ArrayDeque<Speculation> use(Kind kind) {
+		final ArrayDeque<Speculation> speculations = pool.computeIfAbsent(kind, k -> new ArrayDeque<>());
+		final Iterator<Map.Entry<Kind, ArrayDeque<Speculation>>> lru = pool.entrySet().iterator();
+		while (pool.size() > kinds) {
+			for (Speculation speculation : lru.next().getValue()) {
+				speculation.task.cancel(true);
+			}
+			lru.remove();
+		}
+		return speculations;
+	}
+	/**
+	 * Schedules speculative builds for the given kind of maze
+	 * till there are enough of them.
+	 * @param kind the kind of maze
+	 */
+	private synchronized void replenish(Kind kind) {
+		final ArrayDeque<Speculation> speculations = pool.get(kind);
+		if (null == speculations)
+			return; // dropped in the meantime
+		while (speculations.size() < mazesPerKind) {
+			final Speculation speculation = new Speculation(kind, seeds.nextInt(SEED_BOUND));
+			try {
+				speculation.task = worker.submit(() -> build(speculation));
+			} catch (RejectedExecutionException e) {
+				LOGGER.fine("No speculative builds after shutdown");
+				return;
+			}
+			speculations.addLast(speculation);
+		}
+	}
+	/**
+	 * Lets speculative builds continue after an order in the foreground is completed
+	 * and schedules more of them for the kind of maze of that order.
+	 * @param kind the kind of maze of the order
+	 */
+	private synchronized void resume(Kind kind) {
+		busy--;
+		notifyAll();
+		replenish(kind);
+	}
+	/**
+	 * Waits till no order is in progress in the foreground
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private synchronized void pause() throws InterruptedException {
+		while (0 < busy)
+			wait();
+	}
+	/**
+	 * Builds a maze speculatively on the low priority thread
+	 * while no order is in progress in the foreground.
+	 * @param speculation the order for the maze
+	 */
+	private void build(Speculation speculation) {
+		try {
+			pause();
+		} catch (InterruptedException e) {
+			return; // cancelled while waiting
+		}
+		final MazeBuilder builder = MazeFactory.createBuilder(speculation.getBuilder());
+		if (null == builder) {
+			LOGGER.severe("Missing implementation for requested algorithm: " + speculation.getBuilder());
+			return;
+		}
+		builder.buildOrder(speculation, SingleRandom.createIndependent(speculation.getSeed()));
+		builder.run();
+	}
+
+	/**
+	 * The values of an order that make up a kind of maze.
+	 */
+	private static final class Kind {
+		private final int skill;
+		private final Builder builder;
+		private final boolean perfect;
+
+		Kind(int skill, Builder builder, boolean perfect) {
+			this.skill = skill;
+			this.builder = builder;
+			this.perfect = perfect;
+		}
+		@Override
+		public boolean equals(Object other) {
+			if (this == other)
+				return true;
+			if (!(other instanceof Kind))
+				return false;
+			final Kind o = (Kind) other;
+			return skill == o.skill && builder == o.builder && perfect == o.perfect;
+		}
+		@Override
+		public int hashCode() {
+			return (31*skill + builder.hashCode())*31 + (perfect ? 1 : 0);
+		}
+	}
+
+	/**
+	 * An order for a speculative build, it holds the maze once it is delivered.
+	 * The build pauses in progress updates while an order is in progress in the foreground.
+	 */
+	private final class Speculation extends DefaultOrder {
+		private Future<?> task; // the speculative build, set when scheduled
+		private volatile Maze ready; // the delivered maze, null till then
+
+		Speculation(Kind kind, int seed) {
+			super(kind.skill, kind.builder, kind.perfect, seed);
+		}
+		@Override
+		public void deliver(Maze mazeConfig) {
+			super.deliver(mazeConfig);
+			ready = mazeConfig;
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			super.updateProgress(percentage);
+			try {
+				pause();
+			} catch (InterruptedException e) {
+				// keep the flag for the builder to notice
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
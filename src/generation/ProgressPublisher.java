@@ -0,0 +1,47 @@
+package generation;
+
+/**
+ * Publishes the progress of a maze generation to an order at a bounded rate.
+ *
+ * Builders report progress far more often than a progress bar can show it
+ * and each update may redraw the screen. A value is forwarded only if it is larger
+ * than the last published one and the last publication is at least
+ * {@link #MIN_INTERVAL_NANOS} ago. A value of 100 is always forwarded.
+ * Publishing never blocks the builder.
+ *
+ * The class is not thread-safe, it is meant for the thread that builds the maze.
+ */
+class ProgressPublisher {
+	/**
+	 * Minimum time between two publications in nanoseconds, i.e. at most 25 updates per second
+	 */
+	static final long MIN_INTERVAL_NANOS = 40_000_000L;
+
+	private final Order order; // receives the progress updates
+	private int published = -1; // last published percentage, -1 if none
+	private long publishedAt; // time of the last publication as given by System.nanoTime()
+
+	/**
+	 * Constructor
+	 * @param order the order that receives progress updates, not null
+	 */
+	ProgressPublisher(Order order) {
+		this.order = order;
+	}
+	/**
+	 * Publishes the given progress unless it is not new or too early
+	 * @param percentage the current progress, {@code 0 <= percentage <= 100}
+	 * @return true if the progress was forwarded to the order, false otherwise
+	 */
+	boolean publish(int percentage) {
+		if (percentage <= published)
+			return false;
+		final long now = System.nanoTime();
+		if (percentage < 100 && 0 <= published && now - publishedAt < MIN_INTERVAL_NANOS)
+			return false;
+		published = percentage;
+		publishedAt = now;
+		order.updateProgress(percentage);
+		return true;
+	}
+}
@@ -0,0 +1,90 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * A bag of primitive integers with constant time insertion and
+ * constant time removal of a randomly chosen element.
+ * Removal moves the last element into the gap instead of shifting
+ * all following elements as {@code ArrayList.remove(int)} does,
+ * so the order of elements in the bag is not preserved.
+ *
+ * Builders use it for packed wallboards, see {@link #pack(int, CardinalDirection)},
+ * to avoid one Wallboard object per candidate.
+ *
+ * The class is not thread-safe.
+ */
+class RandomBag {
+	private int[] elements;
+	private int size; // number of elements in the bag
+
+	/**
+	 * Constructor for an empty bag
+	 * @param capacity the initial capacity, {@code 0 < capacity}
+	 */
+	RandomBag(int capacity) {
+		elements = new int[Math.max(1, capacity)];
+	}
+	/**
+	 * Tells if the bag has no elements.
+	 * @return true if empty, false otherwise
+	 */
+	boolean isEmpty() {
+		return 0 == size;
+	}
+	/**
+	 * Gives the number of elements in the bag.
+	 * @return number of elements
+	 */
+	int size() {
+		return size;
+	}
+	/**
+	 * Adds the given value to the bag.
+	 * @param value the value to add
+	 */
+	void add(int value) {
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, 2*size);
+		elements[size++] = value;
+	}
+	/**
+	 * Removes a randomly chosen element from the bag.
+	 * @param random the source of randomness to choose the element
+	 * @return the removed element
+	 * precondition !isEmpty()
+	 */
+	int removeRandom(SingleRandom random) {
+		assert 0 < size : "Can not remove from an empty bag";
+		final int index = random.nextIntWithinInterval(0, size-1);
+		final int result = elements[index];
+		// fill the gap with the last element
+		elements[index] = elements[--size];
+		return result;
+	}
+	/**
+	 * Packs a wallboard into a single integer.
+	 * @param cell the packed index of the cell, {@code y*width+x}
+	 * @param cd the direction of the wallboard
+	 * @return {@code 4*cell + cd.ordinal()}
+	 */
+	static int pack(int cell, CardinalDirection cd) {
+		return (cell << 2) | cd.ordinal();
+	}
+	/**
+	 * Gives the packed cell index of a packed wallboard.
+	 * @param wallboard as obtained from {@link #pack(int, CardinalDirection)}
+	 * @return packed index of the cell
+	 */
+	static int getCell(int wallboard) {
+		return wallboard >>> 2;
+	}
+	/**
+	 * Gives the direction of a packed wallboard.
+	 * @param wallboard as obtained from {@link #pack(int, CardinalDirection)}
+	 * @return direction of the wallboard
+	 */
+	static CardinalDirection getDirection(int wallboard) {
+		return CardinalDirection.fromOrdinal(wallboard & 3);
+	}
+}
@@ -0,0 +1,88 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * An index of the areas that rooms occupy in a floorplan to check
+ * if a rectangle overlaps with a room without looking at each of its cells.
+ *
+ * The floorplan is covered by a grid of square buckets of {@link #BUCKET_SIZE} cells per side.
+ * Each room area is a rectangle that is listed in all buckets it overlaps with.
+ * A check looks at the rectangles of the buckets that the given rectangle overlaps with.
+ * Rooms do not overlap and are not larger than a few buckets, so a bucket holds
+ * a bounded number of rectangles and a check takes constant time no matter
+ * how many rooms the floorplan has.
+ *
+ * The class is not thread-safe.
+ */
+class RoomIndex {
+	/**
+	 * Number of cells per side of a bucket
+	 */
+	static final int BUCKET_SIZE = 16;
+	private static final int[] EMPTY = new int[0];
+
+	private final int columns; // number of buckets per row
+	// rectangles per bucket, 4 consecutive values rx, ry, rxl, ryl per rectangle
+	private final int[][] buckets;
+	private final int[] sizes; // number of values in use per bucket
+
+	/**
+	 * Constructor for an empty index
+	 * @param width width of the floorplan, {@code 0 < width}
+	 * @param height height of the floorplan, {@code 0 < height}
+	 */
+	RoomIndex(int width, int height) {
+		columns = (width + BUCKET_SIZE - 1) / BUCKET_SIZE;
+		final int rows = (height + BUCKET_SIZE - 1) / BUCKET_SIZE;
+		buckets = new int[columns*rows][];
+		Arrays.fill(buckets, EMPTY);
+		sizes = new int[columns*rows];
+	}
+	/**
+	 * Adds the area of a room.
+	 * The first corner (rx,ry) is at the upper left position, the second corner (rxl,ryl) is at the lower right position.
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 */
+	void add(int rx, int ry, int rxl, int ryl) {
+		for (int by = ry / BUCKET_SIZE; by <= ryl / BUCKET_SIZE; by++) {
+			for (int bx = rx / BUCKET_SIZE; bx <= rxl / BUCKET_SIZE; bx++) {
+				final int bucket = by*columns + bx;
+				int size = sizes[bucket];
+				if (size == buckets[bucket].length)
+					buckets[bucket] = Arrays.copyOf(buckets[bucket], Math.max(16, 2*size));
+				final int[] values = buckets[bucket];
+				values[size++] = rx;
+				values[size++] = ry;
+				values[size++] = rxl;
+				values[size++] = ryl;
+				sizes[bucket] = size;
+			}
+		}
+	}
+	/**
+	 * Checks if the given area overlaps with the area of any room.
+	 * Precondition {@code 0 <= rx <= rxl < width, 0 <= ry <= ryl < height}
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @return true if there is a cell in the area that is in a room, false otherwise
+	 */
+	boolean overlaps(int rx, int ry, int rxl, int ryl) {
+		for (int by = ry / BUCKET_SIZE; by <= ryl / BUCKET_SIZE; by++) {
+			for (int bx = rx / BUCKET_SIZE; bx <= rxl / BUCKET_SIZE; bx++) {
+				final int bucket = by*columns + bx;
+				final int[] values = buckets[bucket];
+				for (int i = 0; i < sizes[bucket]; i += 4) {
+					if (values[i] <= rxl && rx <= values[i+2] && values[i+1] <= ryl && ry <= values[i+3])
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,58 @@
+package generation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A sink that writes the rows of a maze to a text file as they are finished,
+ * such that a maze of practically unbounded height can be streamed to disk
+ * without holding it in memory.
+ *
+ * The file has one line per row, from top to bottom, with one character per cell
+ * from left to right. The character is the digit {@code '0' + east + 2*south}
+ * where east is 1 if there is a wallboard between the cell and its right neighbor
+ * and south is 1 if there is a wallboard between the cell and the cell below.
+ * The outside border is always closed and not written.
+ *
+ * The sink must be closed after the last row to flush the file.
+ */
+public class RowFileSink implements RowSink, Closeable {
+	private final BufferedWriter writer;
+	private char[] line; // characters of the current row, reused for all rows
+
+	/**
+	 * Constructor, creates or truncates the given file
+	 * @param file the file to write rows to
+	 * @throws IOException if the file can not be opened for writing
+	 */
+	public RowFileSink(File file) throws IOException {
+		writer = new BufferedWriter(new FileWriter(file, StandardCharsets.US_ASCII));
+	}
+	/**
+	 * Writes a finished row as a line of the file.
+	 * @throws UncheckedIOException if the row can not be written
+	 */
+	@Override
+	public void acceptRow(int y, boolean[] eastWalls, boolean[] southWalls) {
+		if (null == line || line.length != eastWalls.length)
+			line = new char[eastWalls.length];
+		for (int x = 0; x < line.length; x++) {
+			line[x] = (char) ('0' + (eastWalls[x] ? 1 : 0) + (southWalls[x] ? 2 : 0));
+		}
+		try {
+			writer.write(line);
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can not write row " + y, e);
+		}
+	}
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
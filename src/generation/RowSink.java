@@ -0,0 +1,24 @@
+package generation;
+
+/**
+ * Receives the rows of a maze one at a time, from top to bottom,
+ * as they are finished by a builder that works row by row,
+ * see {@link MazeBuilderEller#generateRows(int, int, int, RowSink)}.
+ *
+ * A sink decides what to do with a row, for example write it to a file
+ * or apply it to a floorplan. As a builder only keeps the current row,
+ * a sink that does not hold on to rows makes it possible to generate
+ * mazes of practically unbounded height in constant memory.
+ */
+public interface RowSink {
+	/**
+	 * Receives a finished row. The arrays are reused for the next row,
+	 * so their content is only valid during the call.
+	 * @param y the index of the row, starting with 0 for the top row
+	 * @param eastWalls eastWalls[x] is true if there is a wallboard between (x,y) and (x+1,y),
+	 * always true for the last cell of a row
+	 * @param southWalls southWalls[x] is true if there is a wallboard between (x,y) and (x,y+1),
+	 * always true in the last row
+	 */
+	void acceptRow(int y, boolean[] eastWalls, boolean[] southWalls);
+}
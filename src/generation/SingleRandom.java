@@ -1,7 +1,9 @@
 package generation;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.logging.Logger;
+import java.util.random.RandomGenerator;
 
 /**
  * This class implements the generation of pseudo random numbers with a single instance of a random number generator.
@@ -9,6 +11,11 @@ import java.util.logging.Logger;
  * This happens when getRandom is called for the first time. Any subsequent call to setSeed resets the seed of the existing generator.
  * Design implements Singleton pattern.
  * 
+ * Builders do not use the single instance but a stream of their own per order,
+ * see {@link #createIndependent(int)}, that is split into independent streams
+ * with {@link #split()}, so builds that run at the same time do not interfere
+ * and need no lock.
+ * 
  * @author Kemper
  *
  */
@@ -19,7 +26,7 @@ public final class SingleRandom {
 	private static final Logger LOGGER = Logger.getLogger(SingleRandom.class.getName());
 
 	/**  internal internal random number generator. This should NOT be made accessible. */
-	private transient final Random generator;
+	private transient final RandomGenerator generator;
 	/** the single instance of this class. */
 	private static SingleRandom instance = null ;
 	/** optional: a seed value can be set to be able to reproduce a sequence of random numbers. */
@@ -34,6 +41,13 @@ public final class SingleRandom {
 	private SingleRandom() {
 		generator = validSeed ? new Random(theSeed) : new Random();
 	}
+	/**
+	 * Constructor for an instance with its own generator
+	 * @param generator the generator to use
+	 */
+	private SingleRandom(RandomGenerator generator) {
+		this.generator = generator;
+	}
 
 	/**
 	 * Delivers an instance of a random number generator.
@@ -52,6 +66,30 @@ public final class SingleRandom {
 		return instance;
 	}
 	
+	/**
+	 * Delivers a random number generator that is independent of the single instance,
+	 * for builders that need a reproducible stream of their own for an order.
+	 * Unlike the single instance, it can be split into independent streams.
+	 * @param seed is the seed value for the random number generator
+	 * @return a new instance of a random number generator
+	 */
+	static SingleRandom createIndependent(final int seed) {
+		return new SingleRandom(new SplittableRandom(seed));
+	}
+	/**
+	 * Delivers a new random number generator whose stream is independent of this one.
+	 * The new stream only depends on the state of this generator, 
+	 * so splitting in a fixed order gives reproducible streams.
+	 * The state of this generator advances.
+	 * @return a new instance of a random number generator
+	 */
+	SingleRandom split() {
+		if (generator instanceof RandomGenerator.SplittableGenerator)
+			return new SingleRandom(((RandomGenerator.SplittableGenerator) generator).split());
+		// the single instance is not splittable, seed a splittable generator from it
+		return new SingleRandom(new SplittableRandom(generator.nextLong()));
+	}
+	
 	/**
 	 * Delivers a random number.
 	 * @return random integer value
@@ -59,6 +97,13 @@ public final class SingleRandom {
 	public int nextInt() {
 		return generator.nextInt();
 	}
+	/**
+	 * Delivers a random number, for example to seed generators of other types.
+	 * @return random long value
+	 */
+	long nextLong() {
+		return generator.nextLong();
+	}
 	/**
 	 * Generate an integer random number in interval [lowerBound,upperBound] 
 	 * @param lowerBound for the interval of values (inclusive) 
@@ -79,7 +124,8 @@ public final class SingleRandom {
 	public static void setSeed(final int seed) {
 		if (null != instance) {
 			LOGGER.config("SingleRandom already instantiated, setting new seed value " + seed + "will start different RN stream");
-			instance.generator.setSeed(seed) ;
+			// the single instance always has a generator of type Random
+			((Random) instance.generator).setSeed(seed) ;
 		}
 		theSeed = seed;
 		validSeed = true;
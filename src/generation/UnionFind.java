@@ -0,0 +1,84 @@
+package generation;
+
+/**
+ * A partition of the integers {@code 0,1,...,size-1}, e.g. packed cell indices,
+ * into disjoint sets that can be merged. Each set is a tree in a parent array
+ * and is identified by the root of its tree.
+ *
+ * Union by rank keeps trees flat and path halving shortens paths
+ * during each find operation, so a sequence of operations takes
+ * nearly linear time. The implementation works on primitive arrays
+ * and avoids any boxing.
+ *
+ * The class is not thread-safe.
+ */
+class UnionFind {
+	private final int[] parent; // parent[i] == i for the root of a set
+	private final byte[] rank; // upper bound for the height of the tree of a root, at most log2(size)
+	private int count; // number of sets
+
+	/**
+	 * Constructor for a partition where each element is a set of its own
+	 * @param size the number of elements, {@code 0 <= size}
+	 */
+	UnionFind(int size) {
+		parent = new int[size];
+		rank = new byte[size];
+		for (int i = 0; i < size; i++) {
+			parent[i] = i;
+		}
+		count = size;
+	}
+	/**
+	 * Gives the root of the set that contains the given element.
+	 * @param element the element, {@code 0 <= element < size}
+	 * @return root of the set, the same for all elements of the set
+	 */
+	int find(int element) {
+		while (parent[element] != element) {
+			// path halving: let every other element on the path skip its parent
+			parent[element] = parent[parent[element]];
+			element = parent[element];
+		}
+		return element;
+	}
+	/**
+	 * Merges the sets that contain the given elements.
+	 * @param a an element, {@code 0 <= a < size}
+	 * @param b another element, {@code 0 <= b < size}
+	 * @return true if the sets were different and got merged, false if a and b are in the same set
+	 */
+	boolean union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB)
+			return false;
+		// attach the flatter tree below the root of the higher one
+		if (rank[rootA] < rank[rootB]) {
+			int tmp = rootA;
+			rootA = rootB;
+			rootB = tmp;
+		}
+		parent[rootB] = rootA;
+		if (rank[rootA] == rank[rootB])
+			rank[rootA]++;
+		count--;
+		return true;
+	}
+	/**
+	 * Tells if the given elements are in the same set.
+	 * @param a an element, {@code 0 <= a < size}
+	 * @param b another element, {@code 0 <= b < size}
+	 * @return true if in the same set, false otherwise
+	 */
+	boolean isConnected(int a, int b) {
+		return find(a) == find(b);
+	}
+	/**
+	 * Gives the number of disjoint sets.
+	 * @return number of sets
+	 */
+	int getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,25 @@
+package generation;
+
+/**
+ * A callback that receives maximal continuous sequences of wallboards,
+ * wall runs, from {@link Floorplan#visitWallRuns(WallRunVisitor)}.
+ *
+ * A run is delivered as plain integers to avoid any allocation per run.
+ * The start index refers to the first cell of the run that has a wallboard
+ * on the given side, the end index refers to the first cell after the run,
+ * the same as the [start,end] pairs of {@link Floorplan#iterator(int, int, CardinalDirection)}.
+ */
+public interface WallRunVisitor {
+	/**
+	 * Receives a single wall run.
+	 * If the direction is North or South, the run is horizontal,
+	 * line is the y coordinate of the row and start, end are x coordinates.
+	 * If the direction is East or West, the run is vertical,
+	 * line is the x coordinate of the column and start, end are y coordinates.
+	 * @param cd the side of the cells that carries the wallboards
+	 * @param line the row or column of the run
+	 * @param start the first cell of the run, inclusive
+	 * @param end the first cell after the run, exclusive, {@code start < end}
+	 */
+	void visitRun(CardinalDirection cd, int line, int start, int end);
+}
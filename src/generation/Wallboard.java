@@ -1,8 +1,5 @@
 package generation;
 
-import java.util.Arrays;
-import java.util.Objects;
-
 /**
  * Basic class to describe a wallboard which is located at a cell (x,y) and at that cell it is
  * located in a particular direction. One can compute the location of a neighboring cell,
@@ -14,7 +11,7 @@ public class Wallboard {
 	// Cell location (x,y) pair.
 	private int x;
 	private int y;
-	private int[] d; // direction (dx,dy) pair
+	private CardinalDirection cd; // direction of the wallboard
 
 	/**
 	 * Constructor, values have same effect has setWall(x,y,cd).
@@ -26,7 +23,7 @@ public class Wallboard {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDxDyDirection();
+		this.cd = cd;
 	}
 	/**
 	 * Sets the internal fields to the given values for a (x,y)
@@ -39,7 +36,7 @@ public class Wallboard {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDxDyDirection();
+		this.cd = cd;
 	}
 	/**
 	 * Get the x coordinate for the current (x,y) position.
@@ -61,14 +58,14 @@ public class Wallboard {
 	 * given limits and assign these values to this wallboard.
 	 * @param width such that {@code 0 <= x < width}
 	 * @param height such that {@code 0 <= y < height}
+	 * @param random the random number generator to pick position and direction with
 	 */
-	public void setRandomly(int width, int height) {
+	public void setRandomly(int width, int height, SingleRandom random) {
 		// pick position (x,y) with x being random, y being random
-		SingleRandom random = SingleRandom.getRandom() ;
 		x = random.nextIntWithinInterval(0, width-1) ;
 		y = random.nextIntWithinInterval(0, height - 1);
 		// pick a direction, 
-		d = CardinalDirection.East.randomDirection().getDxDyDirection() ;
+		cd = CardinalDirection.East.randomDirection(random) ;
 	}
 	/**
 	 * Computes the x coordinate of neighboring (adjacent) cell for internal walls.
@@ -77,7 +74,7 @@ public class Wallboard {
 	 * @return the x coordinate of adjacent cell
 	 */
 	public int getNeighborX() {
-		return x+d[0] ;
+		return x+cd.getDx() ;
 	}
 	/**
 	 * Computes the y coordinate of neighboring (adjacent) cell for internal walls.
@@ -86,14 +83,16 @@ public class Wallboard {
 	 * @return  the y coordinate of adjacent cell
 	 */
 	public int getNeighborY() {
-		return y+d[1] ;
+		return y+cd.getDy() ;
 	}
 	@Override
 	public int hashCode() {
+		// same values as Arrays.hashCode for the (dx,dy) pair combined
+		// with Objects.hash(x, y) but without allocating arrays
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(d);
-		result = prime * result + Objects.hash(x, y);
+		result = prime * result + prime * (prime + cd.getDx()) + cd.getDy();
+		result = prime * result + prime * (prime + x) + y;
 		return result;
 	}
 	@Override
@@ -105,7 +104,7 @@ public class Wallboard {
 		if (getClass() != obj.getClass())
 			return false;
 		Wallboard other = (Wallboard) obj;
-		return Arrays.equals(d, other.d) && x == other.x && y == other.y;
+		return cd == other.cd && x == other.x && y == other.y;
 	}
 	/**
 	 * Provides the direction for the wallboard with regard to the 
@@ -113,6 +112,6 @@ public class Wallboard {
 	 * @return the direction of this wallboard with regard to its cell location
 	 */
 	public CardinalDirection getDirection() {
-		return CardinalDirection.getDirection(d[0], d[1]) ;
+		return cd ;
 	}
 }
@@ -124,6 +124,13 @@ public class Control extends JFrame implements KeyListener {
      */
     String string_driver = "Manual"; 
     
+    /**
+     * The factory that all rounds of the game order their mazes from.
+     * It keeps mazes of recently played kinds ready in the background
+     * such that a round can start without waiting for its maze.
+     */
+    PregeneratingMazeFactory factory = new PregeneratingMazeFactory();
+    
     /**
      * Default constructor
      */
@@ -175,6 +182,14 @@ public class Control extends JFrame implements KeyListener {
     	//return perfect;
     }
 
+    /**
+     * Gets the factory that mazes are ordered from.
+     * @return the factory
+     */
+    public PregeneratingMazeFactory getFactory() {
+        return factory;
+    }
+
     /**
      * Gets a reference to the panel to draw on.
      * @return the panel
@@ -280,6 +295,17 @@ public class Control extends JFrame implements KeyListener {
         return ((StatePlaying)currentState).getCurrentPosition();
     }
     
+    /**
+     * Provides access to the current position as a packed cell index.
+     * Unlike {@link #getCurrentPosition()} no array is allocated.
+     * This method should only be called in the playing state.
+     * @return the current position as a cell index, 
+     * see {@link generation.Maze#getCellX(int)} and {@link generation.Maze#getCellY(int)}
+     */
+    public int getCurrentCell() {
+        return ((StatePlaying)currentState).getCurrentCell();
+    }
+    
     /**
      * Provides access to the current direction.
      * The controller keeps track of the current position
@@ -315,7 +341,7 @@ public class Control extends JFrame implements KeyListener {
 	    // command line input can specify the builder algorithm to use
 	    // or a filename to load an already computed maze from
 	    
-	    // possible builder algorithms are  (Prim, Kruskal, Eller, Boruvka)
+	    // possible builder algorithms are  (Prim, Kruskal, Eller, Boruvka, BoruvkaParallel, Division, Tiled)
 	    
 	    // command line input only applies to the first round of the game
 	    // so we can directly apply it to the currentState
@@ -346,11 +372,29 @@ public class Control extends JFrame implements KeyListener {
 	        ((StateTitle)currentState).setBuilder(Order.Builder.Prim);
 	    	break;
 	    case "Kruskal":
+	    	msg = "Command line input detected: generating random maze with Kruskal's algorithm.";
+	        ((StateTitle)currentState).setBuilder(Order.Builder.Kruskal);
+	    	break;
 	    case "Eller":
+	    	msg = "Command line input detected: generating random maze with Eller's algorithm.";
+	        ((StateTitle)currentState).setBuilder(Order.Builder.Eller);
+	    	break;
 	    case "Boruvka":
 	    	msg = "Command line input detected: generating random maze with Boruvka's algorithm.";
 	        ((StateTitle)currentState).setBuilder(Order.Builder.Boruvka);
 	        break;
+	    case "BoruvkaParallel":
+	    	msg = "Command line input detected: generating random maze with Boruvka's algorithm in parallel.";
+	        ((StateTitle)currentState).setBuilder(Order.Builder.BoruvkaParallel);
+	        break;
+	    case "Division":
+	    	msg = "Command line input detected: generating random maze with recursive division.";
+	        ((StateTitle)currentState).setBuilder(Order.Builder.Division);
+	        break;
+	    case "Tiled":
+	    	msg = "Command line input detected: generating random maze from tiles built in parallel.";
+	        ((StateTitle)currentState).setBuilder(Order.Builder.Tiled);
+	        break;
 	    //case "Robot":
 	    //	msg = "Command line input detected: generating random maze and creating a robot.";
 	    //	usingRobot = true;
@@ -0,0 +1,28 @@
+package gui;
+
+import generation.Maze;
+import generation.MazePersistence;
+
+/**
+ * Reads and writes mazes in the XML format of {@link MazeFileWriter}
+ * and {@link MazeFileReader}.
+ */
+public class MazeFilePersistence implements MazePersistence {
+
+	@Override
+	public Maze load(String filename) {
+		try {
+			return new MazeFileReader(filename).getMazeConfiguration();
+		} catch (RuntimeException e) {
+			return null; // the reader reports the issue and leaves its fields unset
+		}
+	}
+
+	@Override
+	public void store(String filename, Maze maze, int rooms, int expectedPartiters) {
+		final int[] start = maze.getStartingPosition();
+		MazeFileWriter.store(filename, maze.getWidth(), maze.getHeight(), rooms, expectedPartiters,
+				maze.getRootnode(), maze.getFloorplan(), maze.getMazedists().getAllDistanceValues(),
+				start[0], start[1]);
+	}
+}
@@ -4,8 +4,11 @@ import java.awt.event.KeyEvent;
 import java.lang.ModuleLayer.Controller;
 import java.security.Identity;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
+import javax.swing.SwingUtilities;
+
 import generation.DefaultOrder;
 import generation.Factory;
 import generation.Floorplan;
@@ -98,6 +101,12 @@ public class StateGenerating extends DefaultOrder implements State {
      */
     boolean started;
     
+    /**
+     * True while a redraw for a progress update is scheduled on the UI thread
+     * but has not taken place yet.
+     */
+    private final AtomicBoolean redrawPending = new AtomicBoolean(false);
+    
     /**
      * Constructor uses default settings such that a Depth-First-Search algorithm 
      * is used as the generation method a maze of smallest possible size.
@@ -163,6 +172,9 @@ public class StateGenerating extends DefaultOrder implements State {
         control = controller;
         // keep the reference to the panel for drawing
         this.panel = panel;
+        // order from the factory of the controller that keeps mazes ready in the background
+        if (null != controller.getFactory())
+        	factory = controller.getFactory();
         // init the view
         view = new SimpleScreens();
         // reset percentage for progress
@@ -328,7 +340,10 @@ public class StateGenerating extends DefaultOrder implements State {
 
     /**
      * Allows external increase to percentage in generating mode.
-     * Internal value is only updated if it exceeds the last value and is less or equal 100
+     * Internal value is only updated if it exceeds the last value and is less or equal 100.
+     * The screen is redrawn later on the UI thread, such that the calling builder thread 
+     * does not wait for drawing. Updates that arrive before a pending redraw
+     * took place are covered by that redraw.
      * @param percentage gives the new percentage on a range [0,100]
      */
     @Override
@@ -336,7 +351,14 @@ public class StateGenerating extends DefaultOrder implements State {
     	int donesofar = getProgress();
     	if (donesofar < percentage && percentage <= 100) {
     		super.updateProgress(percentage);
-            draw() ;
+    		if (redrawPending.compareAndSet(false, true)) {
+    			SwingUtilities.invokeLater(() -> {
+    				redrawPending.set(false);
+    				// the maze may have been delivered in the meantime
+    				if (this == control.currentState)
+    					draw();
+    			});
+    		}
         }
     }
     /**
@@ -168,7 +168,8 @@ public class StatePlaying implements State {
         
         // adjust internal state of maze model
         // init data structure for visible walls
-        seenCells = new Floorplan(maze.getWidth()+1,maze.getHeight()+1) ;
+        // the drawing path changes seen cells, other readers can take cheap snapshots
+        seenCells = new Floorplan(maze.getWidth()+1,maze.getHeight()+1, Floorplan.Layout.COPY_ON_WRITE) ;
         // set the current position and direction consistently with the viewing direction
         setPositionDirectionViewingDirection();
 
@@ -301,9 +302,8 @@ public class StatePlaying implements State {
         case JUMP: // make a step forward even through a wall
         	LOGGER.fine("Jump 1 step forward");
             // go to position if within maze
-        	int[] tmpDxDy = cd.getDxDyDirection();
-        	if (maze.isValidPosition(px + tmpDxDy[0], py + tmpDxDy[1])) {
-                setCurrentPosition(px + tmpDxDy[0], py + tmpDxDy[1]) ;
+        	if (maze.isValidPosition(px + cd.getDx(), py + cd.getDy())) {
+                setCurrentPosition(px + cd.getDx(), py + cd.getDy()) ;
                 draw(cd.angle(), 0) ;
             }
             break;
@@ -380,6 +380,13 @@ public class StatePlaying implements State {
         result[1] = py;
         return result;
     }
+    /**
+     * Gives the current position as a packed cell index, see {@link Maze#getCellIndex(int, int)}
+     * @return cell index of the current position
+     */
+    protected int getCurrentCell() {
+        return maze.getCellIndex(px, py);
+    }
     protected CardinalDirection getCurrentDirection() {
         return cd;
     }
@@ -471,8 +478,7 @@ public class StatePlaying implements State {
             slowedDownRedraw(cd.angle(), walkStep);
         }
         // update position to neighbor
-        int[] tmpDxDy = cd.getDxDyDirection();
-        setCurrentPosition(px + dir*tmpDxDy[0], py + dir*tmpDxDy[1]) ;
+        setCurrentPosition(px + dir*cd.getDx(), py + dir*cd.getDy()) ;
         logPosition(); // debugging
         drawHintIfNecessary();  
     }
@@ -523,8 +529,7 @@ public class StatePlaying implements State {
     }
     
     private void logPosition() {
-    	 int[] tmpDxDy = cd.getDxDyDirection();
-    	 LOGGER.fine("x="+px+",y="+py+",dx="+tmpDxDy[0]+",dy="+tmpDxDy[1]+",angle="+cd.angle());
+    	 LOGGER.fine("x="+px+",y="+py+",dx="+cd.getDx()+",dy="+cd.getDy()+",angle="+cd.angle());
     	//LOGGER.fine("x="+px+",y="+py+",dx="+dx+",dy="+dy+",angle="+angle);
     	/*
         if (!deepdebug)
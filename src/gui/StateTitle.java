@@ -208,8 +208,13 @@ public class StateTitle implements State {
         	// TODO: implement code that makes sure we generate different random mazes each time
 			// once done, comment out the System.exit call and the Logger.severe warning
         	// HINT: check http://download.oracle.com/javase/6/docs/api/java/util/Random.html
-        Random rnd = new Random(); 
-        seed = rnd.nextInt(100000);
+        // take the seed of a maze that is ready in the background if there is one
+        if (null != control.getFactory())
+        	seed = control.getFactory().nextSeed(skillLevel, builder, control.isPerfect());
+        else {
+        	Random rnd = new Random(); 
+        	seed = rnd.nextInt(100000);
+        }
         }
         nextState.setSeed(seed);
         
@@ -69,22 +69,11 @@ public class Wizard implements RobotDriver {
 		//moves towards it
 		//(could be optimized to avoid checking the tile the robot came from)
 		int[] position = robot.getCurrentPosition();
-		int[] closer = maze.getNeighborCloserToExit(position[0], position[1]);
+		//the maze knows the direction of the closer tile from a precomputed table
+		CardinalDirection closer = maze.getDirectionCloserToExit(position[0], position[1]);
 		
-		//this is east case closer
-		if (position != closer || robot.hasStopped()) {
-			if ((closer[0] - position[0]) > 0) {
-				robot.directionFacer(CardinalDirection.East);
-			}//this is west case closer
-			else if ((closer[0] - position[0]) < 0) {
-				robot.directionFacer(CardinalDirection.West);
-			}//this is south case closer
-			else if((closer[1] - position[1]) > 0) {
-				robot.directionFacer(CardinalDirection.South);
-			}//this is north case closer
-			else if ((closer[1] - position[1]) < 0) {
-				robot.directionFacer(CardinalDirection.North);
-			}
+		if (closer != null) {
+			robot.directionFacer(closer);
 			robot.move(1);
 			return true;
 		}
@@ -0,0 +1,160 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+import gui.MazeFilePersistence;
+
+public class CachingMazeFactoryTest {
+
+	/**
+	 * Orders a maze and waits for its delivery
+	 * @param factory the factory to order from
+	 * @param order the order
+	 * @return the delivered maze
+	 */
+	private Maze order(Factory factory, DefaultOrder order) {
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		assertEquals(100, order.getProgress());
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if a second order for the same maze is served from memory
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: the first order is a miss, the second one a hit that delivers
+	 * the same immutable floorplan with distances of its own, an order with a different seed is a miss again
+	 */
+	@Test
+	public final void testMemoryHit() {
+		CachingMazeFactory factory = new CachingMazeFactory(1 << 24);
+		Maze first = order(factory, new DefaultOrder(2, Builder.Prim, false, 7));
+		assertEquals(1, factory.getMissCount());
+		assertEquals(0, factory.getHitCount());
+		assertEquals(CachingMazeFactory.estimateBytes(first), factory.getSizeInBytes());
+		Maze second = order(factory, new DefaultOrder(2, Builder.Prim, false, 7));
+		assertSame(first.getFloorplan(), second.getFloorplan());
+		assertTrue(second.getFloorplan().isImmutable());
+		assertNotSame(first.getMazedists(), second.getMazedists());
+		assertEquals(first.getMazedists().getDistanceValue(3, 4), second.getMazedists().getDistanceValue(3, 4));
+		assertEquals(1, factory.getHitCount());
+		Maze third = order(factory, new DefaultOrder(2, Builder.Prim, false, 8));
+		assertNotSame(first.getFloorplan(), third.getFloorplan());
+		assertEquals(2, factory.getMissCount());
+		assertEquals(1, factory.getHitCount());
+	}
+	/**
+	 * Test case: See if the least recently used maze is evicted once the capacity is exceeded
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: with room for two mazes, a third one evicts the one
+	 * that was not used for the longest time, the size stays within the capacity
+	 */
+	@Test
+	public final void testEviction() {
+		long[] bytes = new long[4];
+		for (int seed = 1; seed <= 3; seed++)
+			bytes[seed] = CachingMazeFactory.estimateBytes(order(new MazeFactory(), new DefaultOrder(1, Builder.DFS, true, seed)));
+		// room for any two of the mazes but not for all three
+		long capacity = bytes[1] + bytes[2] + bytes[3] - 1;
+		CachingMazeFactory factory = new CachingMazeFactory(capacity);
+		Maze one = order(factory, new DefaultOrder(1, Builder.DFS, true, 1));
+		Maze two = order(factory, new DefaultOrder(1, Builder.DFS, true, 2));
+		assertSame(one.getFloorplan(), order(factory, new DefaultOrder(1, Builder.DFS, true, 1)).getFloorplan());
+		order(factory, new DefaultOrder(1, Builder.DFS, true, 3));
+		assertEquals(1, factory.getEvictionCount());
+		assertTrue(factory.getSizeInBytes() <= capacity);
+		// seed 2 was least recently used
+		assertSame(one.getFloorplan(), order(factory, new DefaultOrder(1, Builder.DFS, true, 1)).getFloorplan());
+		assertNotSame(two.getFloorplan(), order(factory, new DefaultOrder(1, Builder.DFS, true, 2)).getFloorplan());
+		assertEquals(4, factory.getMissCount());
+		assertEquals(2, factory.getHitCount());
+	}
+	/**
+	 * Marks the walls of a maze as seen or counts the walls that are seen
+	 * @param node the root of the BSP tree
+	 * @param mark true to mark all walls as seen
+	 * @return number of walls that were seen before
+	 */
+	private int seeWalls(BSPNode node, boolean mark) {
+		if (node instanceof BSPBranch)
+			return seeWalls(((BSPBranch) node).getLeftBranch(), mark) + seeWalls(((BSPBranch) node).getRightBranch(), mark);
+		int seen = 0;
+		for (Wall wall : ((BSPLeaf) node).getAllWalls()) {
+			if (wall.isSeen())
+				seen++;
+			if (mark)
+				wall.setSeen(true);
+		}
+		return seen;
+	}
+	/**
+	 * Test case: See if games on mazes from the cache do not see each others walls
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: each delivery has a BSP tree of its own, walls seen in the game
+	 * of one order are not seen in the maze of the next order for the same maze
+	 */
+	@Test
+	public final void testSeenWalls() {
+		CachingMazeFactory factory = new CachingMazeFactory(1 << 24);
+		Maze first = order(factory, new DefaultOrder(2, Builder.DFS, false, 5));
+		assertEquals(0, seeWalls(first.getRootnode(), true));
+		Maze second = order(factory, new DefaultOrder(2, Builder.DFS, false, 5));
+		assertNotSame(first.getRootnode(), second.getRootnode());
+		assertEquals(0, seeWalls(second.getRootnode(), true));
+		Maze third = order(factory, new DefaultOrder(2, Builder.DFS, false, 5));
+		assertEquals(0, seeWalls(third.getRootnode(), false));
+		assertTrue(0 < seeWalls(first.getRootnode(), false));
+		assertEquals(2, factory.getHitCount());
+	}
+	/**
+	 * Test case: See if mazes are served from files after they are gone from memory
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: a new factory on the same directory reads the maze
+	 * from its file without building it, the maze equals the one that was built
+	 */
+	@Test
+	public final void testFileTier() throws IOException {
+		File directory = Files.createTempDirectory("mazes").toFile();
+		try {
+			Maze built = order(new CachingMazeFactory(new MazeFactory(), 1 << 24, directory, new MazeFilePersistence()),
+					new DefaultOrder(1, Builder.Kruskal, false, 13));
+			CachingMazeFactory factory = new CachingMazeFactory(new MazeFactory(), 1 << 24, directory, new MazeFilePersistence());
+			Maze read = order(factory, new DefaultOrder(1, Builder.Kruskal, false, 13));
+			assertEquals(0, factory.getMissCount());
+			assertEquals(1, factory.getFileHitCount());
+			assertTrue(built.getFloorplan().equals(read.getFloorplan()));
+			int[] start = built.getStartingPosition();
+			int[] readStart = read.getStartingPosition();
+			assertEquals(start[0], readStart[0]);
+			assertEquals(start[1], readStart[1]);
+			// now in memory
+			assertTrue(read.getFloorplan().isImmutable());
+			assertSame(read.getFloorplan(), order(factory, new DefaultOrder(1, Builder.Kruskal, false, 13)).getFloorplan());
+			// files carry the version of the mazes
+			assertTrue(new File(directory, "maze-v" + CachingMazeFactory.VERSION + "-1-Kruskal-rooms-13.xml").isFile());
+			assertEquals(1, factory.getHitCount());
+		}
+		finally {
+			for (File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class ConcurrentMazeFactoryTest {
+
+	/**
+	 * An order that holds its worker in the first progress update
+	 * until it is released or the worker is interrupted.
+	 */
+	private static class BlockingOrder extends DefaultOrder {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		BlockingOrder(int seed) {
+			super(1, Builder.DFS, true, seed);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			super.updateProgress(percentage);
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				// keep the flag for the builder to notice
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Builds a maze with the single threaded MazeFactory
+	 * @param order the order to build
+	 * @return the delivered maze
+	 */
+	private Maze createMaze(DefaultOrder order) {
+		MazeFactory factory = new MazeFactory();
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if many concurrent orders deliver the same mazes as the MazeFactory
+	 * <p>
+	 * Method under test: submit(Order)
+	 * <p>
+	 * Correct behavior: every future completes with the maze that is delivered to its order,
+	 * mazes equal the ones of the single threaded factory for the same order
+	 */
+	@Test
+	public final void testConcurrentOrders() throws InterruptedException {
+		ConcurrentMazeFactory factory = new ConcurrentMazeFactory(3, 2);
+		try {
+			List<DefaultOrder> orders = new ArrayList<>();
+			List<CompletableFuture<Maze>> results = new ArrayList<>();
+			for (int i = 0; i < 12; i++) {
+				Builder builder = Builder.values()[i % Builder.values().length];
+				DefaultOrder order = new DefaultOrder(1 + i % 3, builder, 0 == i % 2, 100 + i);
+				orders.add(order);
+				// waits for space as there are more orders than workers and queue
+				results.add(factory.submit(order));
+			}
+			for (int i = 0; i < orders.size(); i++) {
+				Maze maze = results.get(i).join();
+				DefaultOrder order = orders.get(i);
+				assertSame(order.getMaze(), maze);
+				assertEquals(100, order.getProgress());
+				DefaultOrder again = new DefaultOrder(order.getSkillLevel(), order.getBuilder(),
+						order.isPerfect(), order.getSeed());
+				assertTrue(createMaze(again).getFloorplan().equals(maze.getFloorplan()));
+			}
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+	/**
+	 * Test case: See if a full factory refuses orders and a cancelled order frees its space
+	 * <p>
+	 * Method under test: order(Order), cancel()
+	 * <p>
+	 * Correct behavior: with one worker and a queue for one order, a third order is refused,
+	 * after cancelling, orders are accepted and delivered again
+	 */
+	@Test
+	public final void testBackpressureAndCancel() throws InterruptedException {
+		ConcurrentMazeFactory factory = new ConcurrentMazeFactory(1, 1);
+		try {
+			BlockingOrder running = new BlockingOrder(1);
+			BlockingOrder queued = new BlockingOrder(2);
+			assertTrue(factory.order(running));
+			running.started.await();
+			assertTrue(factory.order(queued));
+			assertFalse(factory.order(new DefaultOrder(1, Builder.DFS, true, 3)));
+			factory.cancel();
+			factory.waitTillDelivered();
+			assertNull(running.getMaze());
+			assertNull(queued.getMaze());
+			DefaultOrder order = new DefaultOrder(1, Builder.Prim, true, 4);
+			CompletableFuture<Maze> result = factory.submit(order);
+			assertNotNull(result.join());
+			assertSame(order.getMaze(), result.join());
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+	/**
+	 * Test case: See if an error in a build completes its future and frees its space
+	 * <p>
+	 * Method under test: submit(Order), waitTillDelivered()
+	 * <p>
+	 * Correct behavior: the future of an order whose build throws an Error completes
+	 * exceptionally, waiting for delivery returns and the worker takes the next order
+	 */
+	@Test
+	public final void testErrorInBuild() throws InterruptedException {
+		ConcurrentMazeFactory factory = new ConcurrentMazeFactory(1, 0);
+		try {
+			DefaultOrder failing = new DefaultOrder(1, Builder.DFS, true, 5) {
+				@Override
+				public void updateProgress(int percentage) {
+					throw new AssertionError("failure in build");
+				}
+			};
+			CompletableFuture<Maze> result = factory.submit(failing);
+			factory.waitTillDelivered();
+			assertTrue(result.isCompletedExceptionally());
+			DefaultOrder order = new DefaultOrder(1, Builder.DFS, true, 6);
+			// waits for the space of the failed order
+			Maze maze = factory.submit(order).join();
+			assertNotNull(maze);
+			assertSame(order.getMaze(), maze);
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+}
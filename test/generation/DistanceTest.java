@@ -0,0 +1,436 @@
+package generation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the Distance class against a straightforward reference
+ * implementation that relaxes distance values until a fixpoint is reached
+ * and scans the whole matrix to select exit and starting positions.
+ * The reference follows the original implementation of Distance
+ * such that the tests check that distance values as well as
+ * exit and starting positions are identical.
+ */
+public class DistanceTest {
+
+	/**
+	 * Test case: distances for perfect mazes of various dimensions
+	 * <p>
+	 * Method under test: computeDistances(Floorplan), getDistanceValue(),
+	 * getExitPosition(), getStartPosition(), getMaxDistance(), getMinDistance()
+	 * <p>
+	 * Correct behavior:
+	 * same values and positions as the reference implementation
+	 */
+	@Test
+	public final void testPerfectMazes() {
+		Random random = new Random(42);
+		for (int i = 0; i < 20; i++) {
+			int w = 1 + random.nextInt(30);
+			int h = 1 + random.nextInt(30);
+			Floorplan floorplan = createMaze(random, w, h, 0, false);
+			checkAgainstReference(floorplan, w, h);
+		}
+	}
+	/**
+	 * Test case: distances for mazes with loops and rooms
+	 * <p>
+	 * Method under test: computeDistances(Floorplan), getDistanceValue(),
+	 * getExitPosition(), getStartPosition(), getMaxDistance(), getMinDistance()
+	 * <p>
+	 * Correct behavior:
+	 * same values and positions as the reference implementation
+	 * even if many positions share the same distance
+	 */
+	@Test
+	public final void testMazesWithLoops() {
+		Random random = new Random(4711);
+		for (int i = 0; i < 20; i++) {
+			int w = 12 + random.nextInt(20);
+			int h = 12 + random.nextInt(20);
+			SingleRandom.setSeed(i);
+			Floorplan floorplan = createMaze(random, w, h, w*h/4, true);
+			checkAgainstReference(floorplan, w, h);
+		}
+	}
+	/**
+	 * Test case: distances for a floorplan without any inner wallboards
+	 * <p>
+	 * Method under test: computeDistances(Floorplan), getExitPosition(), getStartPosition()
+	 * <p>
+	 * Correct behavior:
+	 * same values and positions as the reference implementation,
+	 * which is the case for the most ties for exit and starting position
+	 */
+	@Test
+	public final void testOpenArea() {
+		int[][] dimensions = {{1,1}, {1,7}, {7,1}, {2,2}, {5,4}, {4,5}, {9,9}};
+		for (int[] dim : dimensions) {
+			Floorplan floorplan = createMaze(new Random(0), dim[0], dim[1], 0, false);
+			for (int x = 0; x < dim[0]; x++) {
+				for (int y = 0; y < dim[1]; y++) {
+					if (x < dim[0]-1)
+						floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.East));
+					if (y < dim[1]-1)
+						floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.South));
+				}
+			}
+			checkAgainstReference(floorplan, dim[0], dim[1]);
+		}
+	}
+	/**
+	 * Test case: parallel computation of distances
+	 * <p>
+	 * Method under test: computeDistances(Floorplan) with setParallelThreshold(0)
+	 * for distances kept in an array as well as outside of the heap
+	 * <p>
+	 * Correct behavior:
+	 * same values and positions as the serial computation
+	 */
+	@Test
+	public final void testParallel() {
+		long threshold = Distance.getParallelThreshold();
+		try {
+			Random random = new Random(11);
+			int[][] dimensions = {{1,1}, {3,40}, {40,3}, {150,150}, {97,131}};
+			for (int[] dim : dimensions) {
+				int w = dim[0];
+				int h = dim[1];
+				Floorplan floorplan = createMaze(random, w, h, w*h/8, false);
+				for (int open = 0; open < 2; open++) {
+					Distance.setParallelThreshold(Long.MAX_VALUE);
+					Distance serial = new Distance(w, h);
+					serial.computeDistances(floorplan);
+					Distance.setParallelThreshold(0);
+					Distance parallel = new Distance(w, h);
+					Distance mapped = new Distance(w, h, Floorplan.Layout.MAPPED);
+					assertArrayEquals(serial.getExitPosition(), parallel.computeDistances(floorplan));
+					assertArrayEquals(serial.getExitPosition(), mapped.computeDistances(floorplan));
+					assertArrayEquals(serial.getStartPosition(), parallel.getStartPosition());
+					assertArrayEquals(serial.getStartPosition(), mapped.getStartPosition());
+					for (int x = 0; x < w; x++) {
+						for (int y = 0; y < h; y++) {
+							assertEquals(serial.getDistanceValue(x, y), parallel.getDistanceValue(x, y));
+							assertEquals(serial.getDistanceValue(x, y), mapped.getDistanceValue(x, y));
+						}
+					}
+					// second round: no inner wallboards, wide frontiers with many ties
+					for (int x = 0; x < w; x++) {
+						for (int y = 0; y < h; y++) {
+							if (x < w-1)
+								floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.East));
+							if (y < h-1)
+								floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.South));
+						}
+					}
+				}
+			}
+		}
+		finally {
+			Distance.setParallelThreshold(threshold);
+		}
+	}
+	/**
+	 * Test case: incremental update of distances after wallboards changed
+	 * <p>
+	 * Method under test: updateDistances(Floorplan, List), recomputeDistances(Floorplan)
+	 * <p>
+	 * Correct behavior:
+	 * the exit position is kept and distance values as well as the starting position
+	 * are the same as for a full computation with respect to that exit position
+	 */
+	@Test
+	public final void testUpdateDistances() {
+		Random random = new Random(2024);
+		for (int i = 0; i < 30; i++) {
+			int w = 4 + random.nextInt(25);
+			int h = 4 + random.nextInt(25);
+			Floorplan floorplan = createMaze(random, w, h, w*h/3, false);
+			Distance distance = new Distance(w, h);
+			int[] exit = distance.computeDistances(floorplan).clone();
+			for (int round = 0; round < 5; round++) {
+				List<Wallboard> changes = new ArrayList<Wallboard>();
+				for (int k = 0; k < 1 + random.nextInt(6); k++) {
+					int x = random.nextInt(w);
+					int y = random.nextInt(h);
+					CardinalDirection cd = CardinalDirection.values()[random.nextInt(4)];
+					int[] dir = cd.getDxDyDirection();
+					if (x+dir[0] < 0 || x+dir[0] >= w || y+dir[1] < 0 || y+dir[1] >= h)
+						continue;
+					Wallboard wallboard = new Wallboard(x, y, cd);
+					if (floorplan.hasWall(x, y, cd)) {
+						floorplan.deleteWallboard(wallboard);
+					}
+					else {
+						// only add wallboards that keep all positions reachable
+						floorplan.addWallboard(wallboard, true);
+						if (hasInfinity(referenceDistances(floorplan, w, h, exit[0], exit[1]))) {
+							floorplan.deleteWallboard(wallboard);
+							continue;
+						}
+					}
+					changes.add(wallboard);
+				}
+				distance.updateDistances(floorplan, changes);
+				int[][] reference = referenceDistances(floorplan, w, h, exit[0], exit[1]);
+				assertArrayEquals(exit, distance.getExitPosition());
+				for (int x = 0; x < w; x++) {
+					assertArrayEquals(reference[x], distance.getAllDistanceValues()[x]);
+				}
+				assertArrayEquals(referenceMax(reference), distance.getStartPosition());
+				checkNextHops(floorplan, distance, w, h);
+			}
+			// a full recomputation keeps the exit and gives the same values
+			int[][] updated = new int[w][];
+			for (int x = 0; x < w; x++)
+				updated[x] = distance.getAllDistanceValues()[x].clone();
+			distance.recomputeDistances(floorplan);
+			assertArrayEquals(exit, distance.getExitPosition());
+			for (int x = 0; x < w; x++) {
+				assertArrayEquals(updated[x], distance.getAllDistanceValues()[x]);
+			}
+		}
+	}
+	/**
+	 * Test case: ring buffer used for the breadth first search
+	 * <p>
+	 * Method under test: IntRingBuffer add(), remove(), isEmpty(), size()
+	 * <p>
+	 * Correct behavior:
+	 * elements come out in the order they went in, also when the buffer
+	 * grows while its content wraps around the end of the array
+	 */
+	@Test
+	public final void testIntRingBuffer() {
+		IntRingBuffer queue = new IntRingBuffer(4);
+		assertTrue(queue.isEmpty());
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 3 + round; i++)
+				queue.add(next++);
+			for (int i = 0; i < 2; i++)
+				assertEquals(expected++, queue.remove());
+		}
+		assertEquals(next - expected, queue.size());
+		while (!queue.isEmpty())
+			assertEquals(expected++, queue.remove());
+		assertEquals(next, expected);
+	}
+
+	///////////////////////// private helper methods ////////////////////////////
+	/**
+	 * Creates an initialized floorplan with a random spanning tree of pathways
+	 * and a number of additional random pathways that create loops.
+	 * As in the MazeBuilder, a room is placed before pathways are added.
+	 * @param random source of randomness
+	 * @param w width
+	 * @param h height
+	 * @param extra number of wallboards to delete in addition to the spanning tree
+	 * @param room true to place a room at (2,2), requires {@code 7 < w} and {@code 6 < h}
+	 * @return floorplan where every position is reachable from every other position
+	 */
+	private Floorplan createMaze(Random random, int w, int h, int extra, boolean room) {
+		Floorplan floorplan = new Floorplan(w, h);
+		floorplan.initialize();
+		if (room)
+			floorplan.markAreaAsRoom(4, 3, 2, 2, 5, 4, SingleRandom.getRandom());
+		// randomized depth first search
+		boolean[][] visited = new boolean[w][h];
+		int[] stack = new int[w*h];
+		int top = 0;
+		stack[top++] = 0;
+		visited[0][0] = true;
+		while (0 < top) {
+			int x = stack[top-1] % w;
+			int y = stack[top-1] / w;
+			CardinalDirection[] candidates = new CardinalDirection[4];
+			int count = 0;
+			for (CardinalDirection cd : CardinalDirection.values()) {
+				int[] dir = cd.getDxDyDirection();
+				int nx = x + dir[0];
+				int ny = y + dir[1];
+				if (0 <= nx && nx < w && 0 <= ny && ny < h && !visited[nx][ny])
+					candidates[count++] = cd;
+			}
+			if (0 == count) {
+				top--;
+				continue;
+			}
+			CardinalDirection cd = candidates[random.nextInt(count)];
+			int[] dir = cd.getDxDyDirection();
+			floorplan.deleteWallboard(new Wallboard(x, y, cd));
+			visited[x+dir[0]][y+dir[1]] = true;
+			stack[top++] = (y+dir[1])*w + x+dir[0];
+		}
+		for (int i = 0; i < extra; i++) {
+			int x = random.nextInt(w);
+			int y = random.nextInt(h);
+			if (x < w-1 && random.nextBoolean())
+				floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.East));
+			else if (y < h-1)
+				floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.South));
+		}
+		return floorplan;
+	}
+	/**
+	 * Computes distances with the Distance class and with the reference
+	 * implementation and compares the results.
+	 * @param floorplan the maze
+	 * @param w width
+	 * @param h height
+	 */
+	private void checkAgainstReference(Floorplan floorplan, int w, int h) {
+		Distance distance = new Distance(w, h);
+		int[] exit = distance.computeDistances(floorplan);
+
+		int[][] reference = referenceDistances(floorplan, w, h, w/2, h/2);
+		int[] referenceExit = referenceMaxOnBorder(reference);
+		reference = referenceDistances(floorplan, w, h, referenceExit[0], referenceExit[1]);
+		int[] referenceStart = referenceMax(reference);
+
+		assertArrayEquals(referenceExit, exit);
+		assertArrayEquals(referenceExit, distance.getExitPosition());
+		assertArrayEquals(referenceStart, distance.getStartPosition());
+		for (int x = 0; x < w; x++) {
+			assertArrayEquals(reference[x], distance.getAllDistanceValues()[x]);
+		}
+		assertEquals(1, distance.getMinDistance());
+		assertEquals(reference[referenceStart[0]][referenceStart[1]], distance.getMaxDistance());
+		checkNextHops(floorplan, distance, w, h);
+	}
+	/**
+	 * Compares next hops with the original search for a neighbor that is closer
+	 * to the exit, checks all positions that have a neighbor with a smaller distance 
+	 * and follows the path from the starting position to the exit.
+	 * @param floorplan the maze
+	 * @param distance the distances, next hops are available
+	 * @param w width
+	 * @param h height
+	 */
+	private void checkNextHops(Floorplan floorplan, Distance distance, int w, int h) {
+		assertTrue(distance.hasNextHops());
+		for (int x = 0; x < w; x++) {
+			for (int y = 0; y < h; y++) {
+				// same loop as in original MazeContainer.getNeighborCloserToExit
+				int dnext = distance.getDistanceValue(x, y);
+				CardinalDirection expected = null;
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					int[] dir = cd.getDxDyDirection();
+					if (floorplan.hasWall(x, y, cd) || x+dir[0] < 0 || x+dir[0] >= w || y+dir[1] < 0 || y+dir[1] >= h)
+						continue;
+					if (distance.getDistanceValue(x+dir[0], y+dir[1]) < dnext) {
+						dnext = distance.getDistanceValue(x+dir[0], y+dir[1]);
+						expected = cd;
+					}
+				}
+				assertEquals(expected, distance.getDirectionCloserToExit(x, y));
+			}
+		}
+		int[] position = distance.getStartPosition().clone();
+		int steps = 0;
+		CardinalDirection cd;
+		while (null != (cd = distance.getDirectionCloserToExit(position[0], position[1]))) {
+			position[0] += cd.getDxDyDirection()[0];
+			position[1] += cd.getDxDyDirection()[1];
+			steps++;
+		}
+		assertArrayEquals(distance.getExitPosition(), position);
+		assertEquals(distance.getMaxDistance() - 1, steps);
+	}
+	/**
+	 * Reference implementation: relaxes distances until no value changes.
+	 * @param floorplan the maze
+	 * @param w width
+	 * @param h height
+	 * @param ax x coordinate of the position with distance 1
+	 * @param ay y coordinate of the position with distance 1
+	 * @return distance matrix
+	 */
+	private int[][] referenceDistances(Floorplan floorplan, int w, int h, int ax, int ay) {
+		int[][] dists = new int[w][h];
+		for (int[] column : dists)
+			java.util.Arrays.fill(column, Distance.INFINITY);
+		dists[ax][ay] = 1;
+		boolean progress;
+		do {
+			progress = false;
+			for (int x = 0; x < w; x++) {
+				for (int y = 0; y < h; y++) {
+					if (Distance.INFINITY == dists[x][y])
+						continue;
+					for (CardinalDirection cd : CardinalDirection.values()) {
+						int[] dir = cd.getDxDyDirection();
+						int nx = x + dir[0];
+						int ny = y + dir[1];
+						if (floorplan.hasNoWall(x, y, cd) && 0 <= nx && nx < w && 0 <= ny && ny < h
+								&& dists[nx][ny] > dists[x][y] + 1) {
+							dists[nx][ny] = dists[x][y] + 1;
+							progress = true;
+						}
+					}
+				}
+			}
+		} while (progress);
+		return dists;
+	}
+	/**
+	 * Reference implementation: position with maximum distance on the border
+	 * @param dists distance matrix
+	 * @return position
+	 */
+	private int[] referenceMaxOnBorder(int[][] dists) {
+		int w = dists.length;
+		int h = dists[0].length;
+		int[] result = new int[2];
+		int d = 0;
+		for (int x = 0; x < w; x++) {
+			d = keepMax(dists, x, 0, d, result);
+			d = keepMax(dists, x, h-1, d, result);
+		}
+		for (int y = 0; y < h; y++) {
+			d = keepMax(dists, 0, y, d, result);
+			d = keepMax(dists, w-1, y, d, result);
+		}
+		return result;
+	}
+	/**
+	 * Reference implementation: position with maximum distance
+	 * @param dists distance matrix
+	 * @return position
+	 */
+	private int[] referenceMax(int[][] dists) {
+		int[] result = new int[2];
+		int d = 0;
+		for (int x = 0; x < dists.length; x++) {
+			for (int y = 0; y < dists[0].length; y++) {
+				d = keepMax(dists, x, y, d, result);
+			}
+		}
+		return result;
+	}
+	private boolean hasInfinity(int[][] dists) {
+		for (int[] column : dists) {
+			for (int d : column) {
+				if (Distance.INFINITY == d)
+					return true;
+			}
+		}
+		return false;
+	}
+	private int keepMax(int[][] dists, int x, int y, int d, int[] result) {
+		if (dists[x][y] > d) {
+			result[0] = x;
+			result[1] = y;
+			d = dists[x][y];
+		}
+		return d;
+	}
+}
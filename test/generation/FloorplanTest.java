@@ -2,8 +2,11 @@ package generation;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -391,7 +394,7 @@ public class FloorplanTest{
 	/** 
 	 * Test case: Correctness of the markAreaAsRoom method 
 	 * <p>
-	 * Method under test: markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, Random r) 
+	 * Method under test: markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, SingleRandom random) 
 	 * Method under test: isInRoom(int x, int y) 
 	 * <p>
 	 * Correct behavior: 
@@ -406,14 +409,14 @@ public class FloorplanTest{
 	public final void testMarkAreaAsRoom() {
 		Floorplan C = new Floorplan(10,10);
 		C.initialize();
-		C.markAreaAsRoom(4,4, 1,1, 4,4);
+		C.markAreaAsRoom(4,4, 1,1, 4,4, SingleRandom.getRandom());
 		assertTrue(C.areaOverlapsWithRoom(1,1,5,5));
 		assertFalse(C.areaOverlapsWithRoom(6,6,8,8));
 		assertTrue(C.isInRoom(3, 3));
 		assertFalse(C.isInRoom(4, 8));
 
 		Floorplan cell1 = new Floorplan(10, 10);
-		cell1.markAreaAsRoom(5, 5, 2, 2, 7, 7);
+		cell1.markAreaAsRoom(5, 5, 2, 2, 7, 7, SingleRandom.getRandom());
 		for(int x = 2; x < 8; x++){
 			for(int y = 2; y < 8; y++){
 				assertTrue(cell1.isInRoom(x, y));
@@ -423,7 +426,7 @@ public class FloorplanTest{
 
 		Floorplan cell2 = new Floorplan(10, 10);
 		cell2.initialize();
-		cell2.markAreaAsRoom(5, 5, 1, 1, 6, 6);
+		cell2.markAreaAsRoom(5, 5, 1, 1, 6, 6, SingleRandom.getRandom());
 		Wallboard wallboard = new Wallboard(5, 5, CardinalDirection.getDirection(0, 1)) ;
 		assertTrue(cell2.canTearDown(wallboard));
 		wallboard.setLocationDirection(5, 5, CardinalDirection.South);
@@ -543,5 +546,278 @@ public class FloorplanTest{
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.South),Floorplan.CW_BOT);
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.North),Floorplan.CW_TOP);
 	}
+	/**
+	 * Test case: See if packed cell indices and allocation free directions are consistent
+	 * <p>
+	 * Method under test: getCellIndex(int x, int y), getCellX(int cell), getCellY(int cell),
+	 * CardinalDirection.getDx(), getDy(), fromOrdinal(int)
+	 * <p>
+	 * Correct behavior: 
+	 * cell indices are unique in {@code [0,width*height-1]} and map back to the same coordinates,
+	 * dx,dy match with the array provided by getDxDyDirection()
+	 */
+	@Test
+	public final void testCellIndexAndDirections() {
+		Floorplan wide = new Floorplan(7, 3);
+		boolean[] used = new boolean[7*3];
+		for (int x = 0; x < 7; x++) {
+			for (int y = 0; y < 3; y++) {
+				int cell = wide.getCellIndex(x, y);
+				assertFalse(used[cell]);
+				used[cell] = true;
+				assertEquals(x, wide.getCellX(cell));
+				assertEquals(y, wide.getCellY(cell));
+			}
+		}
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			assertEquals(cd, CardinalDirection.fromOrdinal(cd.ordinal()));
+			assertEquals(cd.getDxDyDirection()[0], cd.getDx());
+			assertEquals(cd.getDxDyDirection()[1], cd.getDy());
+			assertEquals(cd, new Wallboard(1, 1, cd).getDirection());
+		}
+	}
+	/**
+	 * Test case: See if the fingerprint is maintained correctly with changes
+	 * <p>
+	 * Method under test: getFingerprint(), hashCode()
+	 * <p>
+	 * Correct behavior: 
+	 * floorplans with equal content have equal fingerprints independent of how
+	 * they were obtained and of their layout, fingerprints change with the content,
+	 * undoing a change restores the fingerprint
+	 */
+	@Test
+	public final void testFingerprint() {
+		Floorplan jagged = new Floorplan(9, 7, Floorplan.Layout.JAGGED);
+		Floorplan packed = new Floorplan(9, 7, Floorplan.Layout.PACKED);
+		assertEquals(jagged.getFingerprint(), packed.getFingerprint());
+		assertNotEquals(jagged.getFingerprint(), new Floorplan(7, 9).getFingerprint());
+		jagged.initialize();
+		packed.initialize();
+		final long initial = jagged.getFingerprint();
+		assertNotEquals(initial, new Floorplan(9, 7).getFingerprint());
+		assertEquals(initial, packed.getFingerprint());
+		assertEquals(jagged.hashCode(), packed.hashCode());
+		// a change and its undo
+		Wallboard wallboard = new Wallboard(4, 3, CardinalDirection.South);
+		jagged.deleteWallboard(wallboard);
+		assertNotEquals(initial, jagged.getFingerprint());
+		assertFalse(jagged.equals(packed));
+		jagged.addWallboard(wallboard, true);
+		assertEquals(initial, jagged.getFingerprint());
+		assertTrue(jagged.equals(packed));
+		// a copy by value has the same fingerprint
+		jagged.markAreaAsRoom(2, 2, 1, 1, 5, 4, SingleRandom.getRandom());
+		int[][] values = new int[9][7];
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 7; y++) {
+				values[x][y] = jagged.getValueOfCell(x, y);
+			}
+		}
+		Floorplan copy = new Floorplan(values);
+		assertEquals(jagged.getFingerprint(), copy.getFingerprint());
+		assertTrue(copy.equals(jagged));
+		assertEquals(jagged.hashCode(), copy.hashCode());
+	}
+	/**
+	 * Test case: See if snapshots and copies are isolated from changes
+	 * <p>
+	 * Method under test: snapshot(), copy(), isImmutable()
+	 * <p>
+	 * Correct behavior: 
+	 * a snapshot keeps the content at the time it was taken and rejects changes,
+	 * a copy can be changed without effect on the original and vice versa,
+	 * for the copy on write as well as for the jagged layout
+	 */
+	@Test
+	public final void testSnapshotAndCopy() {
+		for (Floorplan.Layout layout : new Floorplan.Layout[] {Floorplan.Layout.COPY_ON_WRITE, Floorplan.Layout.JAGGED}) {
+			Floorplan original = new Floorplan(6, 5, layout);
+			original.initialize();
+			Floorplan snapshot = original.snapshot();
+			assertTrue(snapshot.isImmutable());
+			assertFalse(original.isImmutable());
+			assertSame(snapshot, snapshot.snapshot());
+			assertEquals(layout, snapshot.getLayout());
+			assertTrue(snapshot.equals(original));
+			// change the original, snapshot stays as is
+			Wallboard wallboard = new Wallboard(2, 2, CardinalDirection.East);
+			original.deleteWallboard(wallboard);
+			assertTrue(snapshot.hasWall(2, 2, CardinalDirection.East));
+			assertTrue(snapshot.hasWall(3, 2, CardinalDirection.West));
+			assertFalse(snapshot.equals(original));
+			// snapshots reject changes
+			try {
+				snapshot.deleteWallboard(wallboard);
+				fail("Snapshot must not accept changes");
+			}
+			catch (UnsupportedOperationException e) {
+				// expected
+			}
+			assertTrue(snapshot.hasWall(2, 2, CardinalDirection.East));
+			// a copy of a snapshot can be changed, independent of the original
+			Floorplan copy = snapshot.copy();
+			assertFalse(copy.isImmutable());
+			copy.setExitPosition(0, 4);
+			assertTrue(copy.isExitPosition(0, 4));
+			assertFalse(snapshot.isExitPosition(0, 4));
+			assertFalse(original.isExitPosition(0, 4));
+			original.setExitPosition(5, 0);
+			assertFalse(copy.isExitPosition(5, 0));
+			assertEquals(original.snapshot().getFingerprint(), original.getFingerprint());
+		}
+	}
+	/**
+	 * Test case: See if maze builders use the snapshot layout
+	 * <p>
+	 * Method under test: setSnapshotLayout(Layout layout), snapshot()
+	 * <p>
+	 * Correct behavior: 
+	 * the default layout is JAGGED and the snapshot layout COPY_ON_WRITE,
+	 * a maze below the out of heap threshold is built and delivered with the snapshot layout,
+	 * the delivered floorplan is an immutable snapshot for every layout
+	 */
+	@Test
+	public final void testSnapshotLayoutForBuilds() {
+		assertEquals(Floorplan.Layout.JAGGED, new Floorplan(4, 4).getLayout());
+		assertEquals(Floorplan.Layout.COPY_ON_WRITE, Floorplan.getSnapshotLayout());
+		Floorplan.Layout previous = Floorplan.getSnapshotLayout();
+		try {
+			for (Floorplan.Layout layout : new Floorplan.Layout[] {Floorplan.Layout.PACKED, Floorplan.Layout.COPY_ON_WRITE}) {
+				Floorplan.setSnapshotLayout(layout);
+				DefaultOrder order = new DefaultOrder(2, Order.Builder.DFS, false, 17);
+				MazeBuilder builder = new MazeBuilder();
+				builder.buildOrder(order);
+				builder.run();
+				Floorplan delivered = order.getMaze().getFloorplan();
+				assertEquals(layout, delivered.getLayout());
+				assertTrue(delivered.isImmutable());
+			}
+		}
+		finally {
+			Floorplan.setSnapshotLayout(previous);
+		}
+	}
+	/**
+	 * Test case: See if the packed layout behaves like the jagged layout
+	 * <p>
+	 * Method under test: Floorplan(int w, int h, Layout layout), getLayout(), 
+	 * initialize(), markAreaAsRoom(), deleteWallboard(), equals(Object other)
+	 * <p>
+	 * Correct behavior: 
+	 * floorplans of the same dimensions that see the same sequence of operations
+	 * have the same content and are equal, no matter which layout they use.
+	 */
+	@Test
+	public final void testPackedLayout() {
+		checkLayoutAgainstJagged(Floorplan.Layout.PACKED);
+	}
+	/**
+	 * Test case: See if the memory mapped layout behaves like the jagged layout
+	 * <p>
+	 * Method under test: Floorplan(int w, int h, Layout layout), getLayout(), 
+	 * initialize(), markAreaAsRoom(), deleteWallboard(), equals(Object other)
+	 * <p>
+	 * Correct behavior: 
+	 * floorplans of the same dimensions that see the same sequence of operations
+	 * have the same content and are equal, no matter which layout they use.
+	 */
+	@Test
+	public final void testMappedLayout() {
+		checkLayoutAgainstJagged(Floorplan.Layout.MAPPED);
+	}
+	/**
+	 * Performs the same sequence of operations on a floorplan with the jagged layout
+	 * and one with the given layout and compares the results.
+	 * @param layout the layout under test
+	 */
+	private void checkLayoutAgainstJagged(Floorplan.Layout layout) {
+		Floorplan jagged = new Floorplan(10, 8, Floorplan.Layout.JAGGED);
+		Floorplan other = new Floorplan(10, 8, layout);
+		assertEquals(Floorplan.Layout.JAGGED, jagged.getLayout());
+		assertEquals(layout, other.getLayout());
+		assertTrue(jagged.equals(other));
+		jagged.initialize();
+		other.initialize();
+		SingleRandom.setSeed(7);
+		jagged.markAreaAsRoom(3, 3, 2, 2, 4, 4, SingleRandom.getRandom());
+		SingleRandom.setSeed(7);
+		other.markAreaAsRoom(3, 3, 2, 2, 4, 4, SingleRandom.getRandom());
+		Wallboard wallboard = new Wallboard(7, 6, CardinalDirection.East);
+		jagged.deleteWallboard(wallboard);
+		other.deleteWallboard(wallboard);
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 8; y++) {
+				assertEquals(jagged.getValueOfCell(x, y), other.getValueOfCell(x, y));
+			}
+		}
+		assertTrue(jagged.equals(other));
+		assertTrue(other.isInRoom(3, 3));
+		assertFalse(other.hasWall(7, 6, CardinalDirection.East));
+		assertFalse(other.hasWall(8, 6, CardinalDirection.West));
+		assertTrue(other.hasWall(0, 0, CardinalDirection.North));
+	}
 
+	/**
+	 * Test case: See if overlap checks with the room index match a check of each cell
+	 * <p>
+	 * Method under test: areaOverlapsWithRoom, markAreaAsRoom, setInRoomToOne
+	 * <p>
+	 * Correct behavior: for many random areas, areaOverlapsWithRoom is true if and only if
+	 * the area widened by one cell touches the border or a cell in a room,
+	 * also for copies and after single cells are put into a room
+	 */
+	@Test
+	public final void testRoomIndexOverlaps() {
+		final int w = 100;
+		final int h = 80;
+		Floorplan plan = new Floorplan(w, h);
+		plan.initialize();
+		SingleRandom.setSeed(21);
+		SingleRandom random = SingleRandom.getRandom();
+		int rooms = 0;
+		for (int i = 0; i < 2000; i++) {
+			int rw = random.nextIntWithinInterval(3, 8);
+			int rh = random.nextIntWithinInterval(3, 8);
+			int rx = random.nextIntWithinInterval(0, w-rw);
+			int ry = random.nextIntWithinInterval(0, h-rh);
+			boolean expected = overlapsCellByCell(plan, rx, ry, rx+rw-1, ry+rh-1);
+			assertEquals(expected, plan.areaOverlapsWithRoom(rx, ry, rx+rw-1, ry+rh-1));
+			if (!expected) {
+				plan.markAreaAsRoom(rw, rh, rx, ry, rx+rw-1, ry+rh-1, random);
+				rooms++;
+			}
+			if (0 == i % 100)
+				plan.setInRoomToOne(random.nextIntWithinInterval(0, w-1), random.nextIntWithinInterval(0, h-1));
+		}
+		assertTrue(50 < rooms);
+		Floorplan copy = plan.copy();
+		for (int i = 0; i < 500; i++) {
+			int rx = random.nextIntWithinInterval(0, w-1);
+			int ry = random.nextIntWithinInterval(0, h-1);
+			int rxl = random.nextIntWithinInterval(rx, w-1);
+			int ryl = random.nextIntWithinInterval(ry, h-1);
+			assertEquals(overlapsCellByCell(plan, rx, ry, rxl, ryl), copy.areaOverlapsWithRoom(rx, ry, rxl, ryl));
+		}
+	}
+	/**
+	 * Checks each cell of the area widened by one cell as areaOverlapsWithRoom did originally
+	 * @param plan the floorplan
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @return true if the area is too close to the border or contains a cell in a room
+	 */
+	private boolean overlapsCellByCell(Floorplan plan, int rx, int ry, int rxl, int ryl) {
+		if (rx < 1 || ry < 1 || rxl+1 >= plan.getWidth() || ryl+1 >= plan.getHeight())
+			return true;
+		for (int x = rx-1; x <= rxl+1; x++) {
+			for (int y = ry-1; y <= ryl+1; y++) {
+				if (plan.isInRoom(x, y))
+					return true;
+			}
+		}
+		return false;
+	}
 }
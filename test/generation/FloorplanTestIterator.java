@@ -2,7 +2,10 @@ package generation;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -214,6 +217,56 @@ public class FloorplanTestIterator {
             assertEquals("Total number of sequences per column",total+1,c);
         }
     }
+    /**
+     * Test case: See if the sweep over wall runs delivers the same sequences as the iterators
+     * <p>
+     * Method under test: visitWallRuns
+     * <p>
+     * Correct behavior: the sweep delivers the [start,end] pairs of the iterators
+     * for each row and column in the order row by row with North before South
+     * and then column by column with West before East.
+     * Test uses floorplans where random wallboards have been torn down.
+     */
+    @Test
+    public final void testVisitWallRuns() {
+        Random random = new Random(8);
+        for (int round = 0; round < 20; round++) {
+            final int width = 1 + random.nextInt(12);
+            final int height = 1 + random.nextInt(12);
+            final Floorplan floorplan = new Floorplan(width,height);
+            floorplan.initialize();
+            Wallboard wallboard = new Wallboard(0,0,CardinalDirection.East);
+            for (int i = random.nextInt(width*height*2+1); i > 0; i--) {
+                wallboard.setLocationDirection(random.nextInt(width), random.nextInt(height), 
+                        CardinalDirection.values()[random.nextInt(4)]);
+                if (floorplan.canTearDown(wallboard))
+                    floorplan.deleteWallboard(wallboard);
+            }
+            // expected order of runs as seen by the iterators
+            List<String> expected = new ArrayList<>();
+            for (int y = 0; y < height; y++) {
+                addRuns(expected, floorplan, CardinalDirection.North, y, floorplan.iterator(0, y, CardinalDirection.North));
+                addRuns(expected, floorplan, CardinalDirection.South, y, floorplan.iterator(0, y, CardinalDirection.South));
+            }
+            for (int x = 0; x < width; x++) {
+                addRuns(expected, floorplan, CardinalDirection.West, x, floorplan.iterator(x, 0, CardinalDirection.West));
+                addRuns(expected, floorplan, CardinalDirection.East, x, floorplan.iterator(x, 0, CardinalDirection.East));
+            }
+            final List<String> actual = new ArrayList<>();
+            floorplan.visitWallRuns((cd, line, start, end) -> actual.add(cd + " " + line + ": " + start + "-" + end));
+            assertEquals(expected, actual);
+        }
+    }
+    /**
+     * Adds all sequences delivered by the given iterator to the list
+     * in the same textual format as used in testVisitWallRuns
+     */
+    private void addRuns(List<String> list, Floorplan floorplan, CardinalDirection cd, int line, Iterator<int[]> it) {
+        while (it.hasNext()) {
+            int[] seq = it.next();
+            list.add(cd + " " + line + ": " + seq[0] + "-" + seq[1]);
+        }
+    }
     /**
      * All columns treated the same, start with a sequence of wallboards,
      * then a gap, then a sequence and so forth.
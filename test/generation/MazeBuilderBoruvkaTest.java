@@ -6,8 +6,12 @@ import gui.Constants;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MazeBuilderBoruvkaTest extends MazeFactoryTest {
 
@@ -141,6 +145,165 @@ assertEquals(val, val2);
 
 }
 
+/** This test checks that mazes for fixed seeds are perfect, i.e. a spanning tree, 
+ * and that the exit can be reached from everywhere, with and without rooms.
+ * 
+ */
+@Test
+public void testSpanningTreeWithSeeds() {
+	for (int skill = 0; skill < 6; skill++) {
+		for (boolean perfect : new boolean[] {true, false}) {
+			DefaultOrder order = new DefaultOrder(skill, Builder.Boruvka, perfect, 13*skill + 1);
+			MazeFactory factory = new MazeFactory();
+			factory.order(order);
+			factory.waitTillDelivered();
+			Maze testmaze = order.getMaze();
+			int totalwalls = 0;
+			for (int x = 0; x != testmaze.getWidth(); x++) {
+				for (int y = 0; y != testmaze.getHeight(); y++) {
+					assertTrue("Missing path to the exit", 0 < testmaze.getMazedists().getDistanceValue(x, y));
+					if (testmaze.hasWall(x,y, CardinalDirection.South) && (y!= testmaze.getHeight()-1)){
+						totalwalls++;
+					}
+					if (testmaze.hasWall(x,y, CardinalDirection.East)&& (x!= testmaze.getWidth()-1)){
+						totalwalls++;
+					}
+				}
+			}
+			if (perfect) 
+				assertEquals((testmaze.getWidth() - 1)*(testmaze.getHeight() - 1), totalwalls);
+		}
+	}
+}
+
+/** This test checks that edge weights are unique and that mazes are reproducible from the seed.
+ * 
+ */
+@Test
+public void testSeededEdgeWeights() {
+	DefaultOrder order = new DefaultOrder(3, Builder.Boruvka, true, 4711);
+	MazeBuilderBoruvka test = new MazeBuilderBoruvka();
+	test.buildOrder(order);
+	test.floorplan.initialize();
+	Set<Integer> weights = new HashSet<>();
+	int edges = 0;
+	for (int x = 0; x < test.width; x++) {
+		for (int y = 0; y < test.height; y++) {
+			for (CardinalDirection cd : new CardinalDirection[] {CardinalDirection.East, CardinalDirection.South}) {
+				int weight = test.getEdgeWeight(x, y, cd);
+				if (MazeBuilderBoruvka.NO_EDGE != weight) {
+					assertTrue(0 <= weight);
+					weights.add(weight);
+					edges++;
+				}
+			}
+		}
+	}
+	assertEquals((test.width-1)*test.height + test.width*(test.height-1), edges);
+	assertEquals(edges, weights.size());
+	// same seed, same maze; different seed, different maze
+	Maze first = createMaze(4, 1234);
+	Maze second = createMaze(4, 1234);
+	Maze third = createMaze(4, 1235);
+	assertEquals(first.getFloorplan().getFingerprint(), second.getFloorplan().getFingerprint());
+	assertTrue(first.getFloorplan().equals(second.getFloorplan()));
+	assertFalse(first.getFloorplan().equals(third.getFloorplan()));
+}
+/** Creates a perfect Boruvka maze for the given seed.
+ * 
+ */
+private Maze createMaze(int skill, int seed) {
+	DefaultOrder order = new DefaultOrder(skill, Builder.Boruvka, true, seed);
+	MazeFactory factory = new MazeFactory();
+	factory.order(order);
+	factory.waitTillDelivered();
+	return order.getMaze();
+}
+
+/** This test checks that the parallel builder delivers the same mazes as the serial builder,
+ * for skill levels with and without rooms and for a maze that is large enough to be split into stripes.
+ * 
+ */
+@Test
+public void testParallelMatchesSerial() {
+	for (int skill = 0; skill < 6; skill++) {
+		for (boolean perfect : new boolean[] {true, false}) {
+			DefaultOrder serial = new DefaultOrder(skill, Builder.Boruvka, perfect, 7*skill + 3);
+			DefaultOrder parallel = new DefaultOrder(skill, Builder.BoruvkaParallel, perfect, 7*skill + 3);
+			MazeBuilder builder = new MazeBuilderBoruvka();
+			builder.buildOrder(serial);
+			builder.run();
+			builder = new MazeBuilderBoruvkaParallel();
+			builder.buildOrder(parallel);
+			builder.run();
+			assertTrue(serial.getMaze().getFloorplan().equals(parallel.getMaze().getFloorplan()));
+		}
+	}
+	DefaultOrder serial = new DefaultOrder(1, Builder.Boruvka, false, 99);
+	DefaultOrder parallel = new DefaultOrder(1, Builder.BoruvkaParallel, false, 99);
+	MazeBuilder builder = new MazeBuilderBoruvka();
+	builder.buildOrder(serial, 160, 120);
+	builder.run();
+	builder = new MazeBuilderBoruvkaParallel();
+	builder.buildOrder(parallel, 160, 120);
+	builder.run();
+	assertTrue(1 < 160*120 / MazeBuilderBoruvkaParallel.MIN_STRIPE);
+	assertEquals(serial.getMaze().getFloorplan().getFingerprint(), parallel.getMaze().getFloorplan().getFingerprint());
+	assertTrue(serial.getMaze().getFloorplan().equals(parallel.getMaze().getFloorplan()));
+}
+
+/** This test checks that concurrent merges in the concurrent union-find structure 
+ * succeed exactly once per pair of different sets.
+ * 
+ */
+@Test
+public void testConcurrentUnionFind() throws InterruptedException {
+	final int size = 4096;
+	final ConcurrentUnionFind components = new ConcurrentUnionFind(size);
+	final AtomicInteger merges = new AtomicInteger();
+	Thread[] threads = new Thread[4];
+	for (int t = 0; t < threads.length; t++) {
+		final int offset = t;
+		threads[t] = new Thread(() -> {
+			// all threads try to merge the same chain in different orders
+			for (int i = 0; i < size-1; i++) {
+				int j = (i*(2*offset+1)) % (size-1);
+				if (components.union(j, j+1))
+					merges.incrementAndGet();
+			}
+		});
+		threads[t].start();
+	}
+	for (Thread thread : threads) {
+		thread.join();
+	}
+	assertEquals(size-1, merges.get());
+	assertEquals(1, components.getCount());
+	assertEquals(0, components.find(size-1));
+}
+
+/** This test checks the union-find structure that keeps track of connected cells.
+ * 
+ */
+@Test
+public void testUnionFind() {
+	UnionFind components = new UnionFind(10);
+	assertEquals(10, components.getCount());
+	assertTrue(components.union(1, 2));
+	assertTrue(components.union(3, 4));
+	assertTrue(components.union(2, 4));
+	assertFalse(components.union(1, 3));
+	assertEquals(7, components.getCount());
+	assertTrue(components.isConnected(1, 4));
+	assertEquals(components.find(1), components.find(3));
+	assertFalse(components.isConnected(0, 1));
+	for (int i = 0; i < 9; i++) {
+		components.union(i, i+1);
+	}
+	assertEquals(1, components.getCount());
+	assertTrue(components.isConnected(0, 9));
+}
+
 /** This test insures that all skill levels generate a working maze. Not all skill levels return a square maze layout.
  * WARNING: this strenuous test 
  * may take up to 3 minutes
@@ -0,0 +1,109 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderDivisionTest {
+
+	/**
+	 * Builds a maze with recursive division in the current thread
+	 * @param builder the builder to use
+	 * @param order the order to build
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @return the delivered maze
+	 */
+	private Maze build(MazeBuilderDivision builder, DefaultOrder order, int width, int height) {
+		builder.buildOrder(order, width, height);
+		builder.run();
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if mazes built by recursive division are perfect
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: a perfect maze is a spanning tree,
+	 * i.e. (width-1)*(height-1) inner wallboards remain, and every cell can reach the exit
+	 */
+	@Test
+	public final void testPerfectMazes() {
+		for (int skill = 0; skill < 8; skill++) {
+			DefaultOrder order = new DefaultOrder(skill, Builder.Division, true, 19*skill + 6);
+			MazeBuilderDivision builder = new MazeBuilderDivision();
+			builder.buildOrder(order);
+			builder.run();
+			Maze maze = order.getMaze();
+			int walls = 0;
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+					if (y < maze.getHeight()-1 && maze.hasWall(x, y, CardinalDirection.South))
+						walls++;
+					if (x < maze.getWidth()-1 && maze.hasWall(x, y, CardinalDirection.East))
+						walls++;
+				}
+			}
+			assertEquals((maze.getWidth()-1)*(maze.getHeight()-1), walls);
+		}
+	}
+	/**
+	 * Test case: See if mazes with rooms are fully connected
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: every cell can reach the exit
+	 */
+	@Test
+	public final void testMazesWithRooms() {
+		for (int skill = 1; skill < 8; skill++) {
+			DefaultOrder order = new DefaultOrder(skill, Builder.Division, false, 37*skill + 2);
+			MazeBuilderDivision builder = new MazeBuilderDivision();
+			builder.buildOrder(order);
+			builder.run();
+			Maze maze = order.getMaze();
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: See if the maze only depends on the seed and not on the number of threads
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: pools with one and with four threads deliver the same maze
+	 * for a maze large enough to be split into many tasks, a different seed gives a different maze
+	 */
+	@Test
+	public final void testIndependentOfThreads() {
+		final int width = 256;
+		final int height = 192;
+		assertTrue(8 < width*height / MazeBuilderDivision.MIN_TASK_CELLS);
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool quad = new ForkJoinPool(4);
+		try {
+			Maze first = build(new MazeBuilderDivision(single),
+					new DefaultOrder(3, Builder.Division, true, 77), width, height);
+			Maze second = build(new MazeBuilderDivision(quad),
+					new DefaultOrder(3, Builder.Division, true, 77), width, height);
+			Maze third = build(new MazeBuilderDivision(quad),
+					new DefaultOrder(3, Builder.Division, true, 78), width, height);
+			assertTrue(first.getFloorplan().equals(second.getFloorplan()));
+			assertFalse(first.getFloorplan().equals(third.getFloorplan()));
+		}
+		finally {
+			single.shutdown();
+			quad.shutdown();
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderEllerTest {
+
+	/**
+	 * Creates a maze with Eller's algorithm through the maze factory
+	 * @param skill the skill level
+	 * @param perfect true for a maze without rooms
+	 * @param seed the seed for the random number generator
+	 * @return the delivered maze
+	 */
+	private Maze createMaze(int skill, boolean perfect, int seed) {
+		DefaultOrder order = new DefaultOrder(skill, Builder.Eller, perfect, seed);
+		MazeFactory factory = new MazeFactory();
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if mazes built with Eller's algorithm are perfect
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: a perfect maze is a spanning tree,
+	 * i.e. (width-1)*(height-1) inner wallboards remain, and every cell can reach the exit
+	 */
+	@Test
+	public final void testPerfectMazes() {
+		for (int skill = 0; skill < 8; skill++) {
+			Maze maze = createMaze(skill, true, 13*skill + 4);
+			int walls = 0;
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+					if (y < maze.getHeight()-1 && maze.hasWall(x, y, CardinalDirection.South))
+						walls++;
+					if (x < maze.getWidth()-1 && maze.hasWall(x, y, CardinalDirection.East))
+						walls++;
+				}
+			}
+			assertEquals((maze.getWidth()-1)*(maze.getHeight()-1), walls);
+		}
+	}
+	/**
+	 * Test case: See if mazes with rooms are fully connected
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: every cell can reach the exit
+	 */
+	@Test
+	public final void testMazesWithRooms() {
+		for (int skill = 1; skill < 8; skill++) {
+			Maze maze = createMaze(skill, false, 29*skill + 3);
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: See if mazes are reproducible from the seed
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: same seed, same maze; different seed, different maze
+	 */
+	@Test
+	public final void testSeed() {
+		Maze first = createMaze(4, true, 4321);
+		Maze second = createMaze(4, true, 4321);
+		Maze third = createMaze(4, true, 4322);
+		assertTrue(first.getFloorplan().equals(second.getFloorplan()));
+		assertFalse(first.getFloorplan().equals(third.getFloorplan()));
+	}
+	/**
+	 * Test case: See if a tall maze streamed to a sink is a spanning tree
+	 * <p>
+	 * Method under test: generateRows(int, int, int, RowSink)
+	 * <p>
+	 * Correct behavior: rows arrive in order, the outside border stays closed,
+	 * exactly width*height-1 wallboards are torn down and they connect all cells
+	 */
+	@Test
+	public final void testStreamingRows() {
+		final int width = 17;
+		final int height = 5000;
+		final int[] rows = new int[1];
+		final UnionFind components = new UnionFind(width*height);
+		MazeBuilderEller.generateRows(width, height, 11, (y, eastWalls, southWalls) -> {
+			assertEquals(rows[0]++, y);
+			assertTrue(eastWalls[width-1]);
+			for (int x = 0; x < width; x++) {
+				final int cell = y*width + x;
+				// each torn down wallboard must connect two components, otherwise there is a loop
+				if (!eastWalls[x])
+					assertTrue(components.union(cell, cell + 1));
+				if (y == height-1)
+					assertTrue(southWalls[x]);
+				else if (!southWalls[x])
+					assertTrue(components.union(cell, cell + width));
+			}
+		});
+		assertEquals(height, rows[0]);
+		assertEquals(1, components.getCount());
+	}
+	/**
+	 * Test case: See if a streamed maze is written to a file row by row
+	 * <p>
+	 * Method under test: RowFileSink.acceptRow(int, boolean[], boolean[]), generateRows(int, int, int, RowSink)
+	 * <p>
+	 * Correct behavior: the file has a line per row with a digit per cell that encodes
+	 * the east and south wallboards of the cell, the same seed gives the same rows
+	 */
+	@Test
+	public final void testRowFileSink() throws IOException {
+		final int width = 9;
+		final int height = 300;
+		final List<String> expected = new ArrayList<>();
+		MazeBuilderEller.generateRows(width, height, 5, (y, eastWalls, southWalls) -> {
+			StringBuilder row = new StringBuilder();
+			for (int x = 0; x < width; x++) {
+				row.append((eastWalls[x] ? 1 : 0) + (southWalls[x] ? 2 : 0));
+			}
+			expected.add(row.toString());
+		});
+		File file = File.createTempFile("maze", ".txt");
+		try {
+			try (RowFileSink sink = new RowFileSink(file)) {
+				MazeBuilderEller.generateRows(width, height, 5, sink);
+			}
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII);
+			assertEquals(expected, lines);
+			assertEquals(height, lines.size());
+			// the outside border is closed
+			for (String line : lines)
+				assertEquals(1, (line.charAt(width-1) - '0') & 1);
+			for (char c : lines.get(height-1).toCharArray())
+				assertEquals(2, (c - '0') & 2);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	/**
+	 * Test case: See if a maze above the out of heap threshold is built in a memory mapped floorplan
+	 * and if dimensions beyond the supported number of cells are rejected
+	 * <p>
+	 * Method under test: buildOrder(Order, int, int), generatePathways()
+	 * <p>
+	 * Correct behavior: the floorplan of a 4096 x 4096 maze is memory mapped and
+	 * holds a spanning tree, i.e. (width-1)*(height-1) inner wallboards remain,
+	 * too many cells for an int index or for two edges per cell give an IllegalArgumentException
+	 */
+	@Test
+	public final void testOutOfHeap() {
+		final int side = 4096;
+		assertTrue((long) side * side >= MazeBuilder.OUT_OF_HEAP_THRESHOLD);
+		MazeBuilder builder = new MazeBuilderEller();
+		builder.buildOrder(new DefaultOrder(0, Builder.Eller, true, 8), side, side);
+		assertEquals(Floorplan.Layout.MAPPED, builder.floorplan.getLayout());
+		builder.floorplan.initialize();
+		builder.generatePathways();
+		long walls = 0;
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				if (y < side-1 && builder.floorplan.hasWall(x, y, CardinalDirection.South))
+					walls++;
+				if (x < side-1 && builder.floorplan.hasWall(x, y, CardinalDirection.East))
+					walls++;
+			}
+		}
+		assertEquals((long) (side-1)*(side-1), walls);
+		// 50000 x 50000 cells exceed the int range, 40000 x 40000 cells are too many for two edges per cell
+		MazeBuilder[] builders = { new MazeBuilder(), new MazeBuilderKruskal() };
+		int[] sides = { 50000, 40000 };
+		for (int i = 0; i < builders.length; i++) {
+			try {
+				builders[i].buildOrder(new DefaultOrder(0, Builder.DFS, true, 8), sides[i], sides[i]);
+				fail("Dimensions beyond the supported number of cells must be rejected");
+			}
+			catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
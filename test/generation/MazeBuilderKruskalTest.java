@@ -0,0 +1,97 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderKruskalTest {
+
+	/**
+	 * Creates a maze with Kruskal's algorithm through the maze factory
+	 * @param skill the skill level
+	 * @param perfect true for a maze without rooms
+	 * @param seed the seed for the random number generator
+	 * @return the delivered maze
+	 */
+	private Maze createMaze(int skill, boolean perfect, int seed) {
+		DefaultOrder order = new DefaultOrder(skill, Builder.Kruskal, perfect, seed);
+		MazeFactory factory = new MazeFactory();
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+	/**
+	 * Counts the wallboards inside of the maze, excluding the outside border
+	 * @param maze the maze
+	 * @return number of inner wallboards
+	 */
+	private int countInnerWallboards(Maze maze) {
+		int walls = 0;
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				if (y < maze.getHeight()-1 && maze.hasWall(x, y, CardinalDirection.South))
+					walls++;
+				if (x < maze.getWidth()-1 && maze.hasWall(x, y, CardinalDirection.East))
+					walls++;
+			}
+		}
+		return walls;
+	}
+	/**
+	 * Test case: See if mazes built with Kruskal's algorithm are perfect
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: a perfect maze is a spanning tree,
+	 * i.e. (width-1)*(height-1) inner wallboards remain, and every cell can reach the exit
+	 */
+	@Test
+	public final void testPerfectMazes() {
+		for (int skill = 0; skill < 8; skill++) {
+			Maze maze = createMaze(skill, true, 17*skill + 2);
+			assertEquals((maze.getWidth()-1)*(maze.getHeight()-1), countInnerWallboards(maze));
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: See if mazes with rooms are fully connected
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: every cell can reach the exit
+	 */
+	@Test
+	public final void testMazesWithRooms() {
+		for (int skill = 1; skill < 8; skill++) {
+			Maze maze = createMaze(skill, false, 23*skill + 1);
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: See if mazes are reproducible from the seed
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: same seed, same maze; different seed, different maze
+	 */
+	@Test
+	public final void testSeed() {
+		Maze first = createMaze(4, true, 1234);
+		Maze second = createMaze(4, true, 1234);
+		Maze third = createMaze(4, true, 1235);
+		assertTrue(first.getFloorplan().equals(second.getFloorplan()));
+		assertFalse(first.getFloorplan().equals(third.getFloorplan()));
+	}
+}
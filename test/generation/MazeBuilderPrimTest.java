@@ -0,0 +1,75 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderPrimTest {
+
+	/**
+	 * Test case: See if mazes built with Prim's algorithm are perfect
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: for fixed seeds, a perfect maze is a spanning tree,
+	 * i.e. (width-1)*(height-1) inner wallboards remain, and every cell can reach the exit
+	 */
+	@Test
+	public final void testSpanningTreeWithSeeds() {
+		for (int skill = 0; skill < 6; skill++) {
+			DefaultOrder order = new DefaultOrder(skill, Builder.Prim, true, 31*skill + 5);
+			MazeBuilder builder = new MazeBuilderPrim();
+			builder.buildOrder(order);
+			builder.run();
+			Maze maze = order.getMaze();
+			int walls = 0;
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+					if (y < maze.getHeight()-1 && maze.hasWall(x, y, CardinalDirection.South))
+						walls++;
+					if (x < maze.getWidth()-1 && maze.hasWall(x, y, CardinalDirection.East))
+						walls++;
+				}
+			}
+			assertEquals((maze.getWidth()-1)*(maze.getHeight()-1), walls);
+		}
+	}
+	/**
+	 * Test case: See if the random bag delivers each element exactly once
+	 * <p>
+	 * Method under test: RandomBag add, removeRandom, pack
+	 * <p>
+	 * Correct behavior: all added elements are removed exactly once,
+	 * packed wallboards give back their cell and direction
+	 */
+	@Test
+	public final void testRandomBag() {
+		SingleRandom.setSeed(3);
+		SingleRandom random = SingleRandom.getRandom();
+		RandomBag bag = new RandomBag(1);
+		assertTrue(bag.isEmpty());
+		for (int i = 0; i < 100; i++) {
+			bag.add(i);
+		}
+		assertEquals(100, bag.size());
+		boolean[] seen = new boolean[100];
+		while (!bag.isEmpty()) {
+			int value = bag.removeRandom(random);
+			assertFalse(seen[value]);
+			seen[value] = true;
+		}
+		for (boolean b : seen) {
+			assertTrue(b);
+		}
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			int packed = RandomBag.pack(12345, cd);
+			assertEquals(12345, RandomBag.getCell(packed));
+			assertEquals(cd, RandomBag.getDirection(packed));
+		}
+	}
+}
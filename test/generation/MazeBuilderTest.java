@@ -0,0 +1,84 @@
+package generation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderTest {
+	/**
+	 * The maze that the DFS builder delivers for skill level 1 and seed 4711.
+	 * Each row lists the wallboards of its cells from left to right,
+	 * 1 for a wallboard to the east, 2 for a wallboard to the south, 3 for both.
+	 */
+	private static final String[] DFS_MAZE = {
+			"022221121201",
+			"101012112231",
+			"132110322211",
+			"101322222211",
+			"112212203031",
+			"110122122211",
+			"231221101231",
+			"011012111011",
+			"123130312311",
+			"122212110231",
+			"022122311011",
+			"223222232323",
+	};
+
+	/**
+	 * Creates a maze with the DFS algorithm through the maze factory
+	 * @param skill the skill level
+	 * @param perfect true for a maze without rooms
+	 * @param seed the seed for the random number generator
+	 * @return the delivered maze
+	 */
+	private Maze createMaze(int skill, boolean perfect, int seed) {
+		DefaultOrder order = new DefaultOrder(skill, Builder.DFS, perfect, seed);
+		MazeFactory factory = new MazeFactory();
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+	/**
+	 * Lists the wallboards of each row of the maze in the format of {@link #DFS_MAZE}
+	 * @param maze the maze
+	 * @return one string per row
+	 */
+	private String[] toRows(Maze maze) {
+		String[] rows = new String[maze.getHeight()];
+		for (int y = 0; y < maze.getHeight(); y++) {
+			StringBuilder row = new StringBuilder();
+			for (int x = 0; x < maze.getWidth(); x++) {
+				int walls = 0;
+				if (maze.hasWall(x, y, CardinalDirection.East))
+					walls += 1;
+				if (maze.hasWall(x, y, CardinalDirection.South))
+					walls += 2;
+				row.append(walls);
+			}
+			rows[y] = row.toString();
+		}
+		return rows;
+	}
+	/**
+	 * Test case: See if the DFS builder still delivers the same maze for a fixed seed
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: the wallboards, the starting position and the exit
+	 * match the maze that was recorded for the seed
+	 */
+	@Test
+	public final void testFixedSeed() {
+		Maze maze = createMaze(1, true, 4711);
+		assertArrayEquals(DFS_MAZE, toRows(maze));
+		assertEquals(5, maze.getStartingPosition()[0]);
+		assertEquals(4, maze.getStartingPosition()[1]);
+		assertEquals(7, maze.getExitPosition()[0]);
+		assertEquals(0, maze.getExitPosition()[1]);
+	}
+}
@@ -0,0 +1,103 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class MazeBuilderTiledTest {
+
+	/**
+	 * Builds a maze from tiles in the current thread
+	 * @param tileBuilder the algorithm for tiles
+	 * @param order the order to build
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @return the delivered maze
+	 */
+	private Maze build(Builder tileBuilder, DefaultOrder order, int width, int height) {
+		MazeBuilderTiled builder = new MazeBuilderTiled(tileBuilder);
+		builder.buildOrder(order, width, height);
+		builder.run();
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if mazes stitched from tiles are perfect for all tile algorithms
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: a perfect maze is a spanning tree,
+	 * i.e. (width-1)*(height-1) inner wallboards remain, and every cell can reach the exit,
+	 * also for tiles of different sizes at the right and bottom end of the maze
+	 */
+	@Test
+	public final void testPerfectMazes() {
+		final int width = 2*MazeBuilderTiled.TILE_SIZE + 21;
+		final int height = MazeBuilderTiled.TILE_SIZE + 9;
+		for (Builder tileBuilder : Builder.values()) {
+			if (Builder.Tiled == tileBuilder)
+				continue;
+			Maze maze = build(tileBuilder, new DefaultOrder(3, Builder.Tiled, true, 41), width, height);
+			int walls = 0;
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+					if (y < maze.getHeight()-1 && maze.hasWall(x, y, CardinalDirection.South))
+						walls++;
+					if (x < maze.getWidth()-1 && maze.hasWall(x, y, CardinalDirection.East))
+						walls++;
+				}
+			}
+			assertEquals((width-1)*(height-1), walls);
+		}
+	}
+	/**
+	 * Test case: See if mazes with rooms are fully connected
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: every cell can reach the exit
+	 */
+	@Test
+	public final void testMazesWithRooms() {
+		for (int skill = 9; skill < 15; skill += 2) {
+			DefaultOrder order = new DefaultOrder(skill, Builder.Tiled, false, 11*skill);
+			MazeBuilder builder = new MazeBuilderTiled(MazeBuilderTiled.DEFAULT_TILE_BUILDER);
+			builder.buildOrder(order);
+			builder.run();
+			Maze maze = order.getMaze();
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertTrue(0 < maze.getMazedists().getDistanceValue(x, y));
+				}
+			}
+		}
+	}
+	/**
+	 * Test case: See if mazes are reproducible from the seed although tiles are built in parallel
+	 * <p>
+	 * Method under test: generatePathways()
+	 * <p>
+	 * Correct behavior: same seed, same maze; different seed, different maze;
+	 * tiles can not be built from tiles
+	 */
+	@Test
+	public final void testSeed() {
+		Maze first = build(Builder.Prim, new DefaultOrder(3, Builder.Tiled, true, 5), 200, 130);
+		Maze second = build(Builder.Prim, new DefaultOrder(3, Builder.Tiled, true, 5), 200, 130);
+		Maze third = build(Builder.Prim, new DefaultOrder(3, Builder.Tiled, true, 6), 200, 130);
+		assertTrue(first.getFloorplan().equals(second.getFloorplan()));
+		assertFalse(first.getFloorplan().equals(third.getFloorplan()));
+		try {
+			new MazeBuilderTiled(Builder.Tiled);
+			fail("Tiles built from tiles must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
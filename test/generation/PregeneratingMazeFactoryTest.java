@@ -0,0 +1,118 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class PregeneratingMazeFactoryTest {
+
+	/**
+	 * Builds a maze with the MazeFactory
+	 * @param order the order to build
+	 * @return the delivered maze
+	 */
+	private Maze createMaze(DefaultOrder order) {
+		MazeFactory factory = new MazeFactory();
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+	/**
+	 * Test case: See if an order for a ready maze is delivered right away
+	 * <p>
+	 * Method under test: nextSeed(int, Builder, boolean), order(Order)
+	 * <p>
+	 * Correct behavior: the first order of a kind is built by the other factory,
+	 * afterwards a maze of that kind is built in the background and an order
+	 * with its seed is delivered before order returns, the maze equals
+	 * the one the MazeFactory builds for the same order
+	 */
+	@Test
+	public final void testReadyMaze() throws InterruptedException {
+		PregeneratingMazeFactory factory = new PregeneratingMazeFactory(1, 2);
+		try {
+			DefaultOrder first = new DefaultOrder(2, Builder.Prim, true, factory.nextSeed(2, Builder.Prim, true));
+			assertTrue(factory.order(first));
+			factory.waitTillDelivered();
+			assertNotNull(first.getMaze());
+			assertEquals(1, factory.getMissCount());
+			factory.waitTillPregenerated();
+			DefaultOrder second = new DefaultOrder(2, Builder.Prim, true, factory.nextSeed(2, Builder.Prim, true));
+			assertTrue(factory.order(second));
+			assertNotNull(second.getMaze());
+			assertEquals(100, second.getProgress());
+			assertEquals(1, factory.getHitCount());
+			DefaultOrder again = new DefaultOrder(2, Builder.Prim, true, second.getSeed());
+			assertTrue(createMaze(again).getFloorplan().equals(second.getMaze().getFloorplan()));
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+	/**
+	 * Test case: See if only the most recently ordered kinds of mazes are kept ready
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: with room for two kinds, ordering a third kind
+	 * drops the ready maze of the least recently ordered kind
+	 */
+	@Test
+	public final void testRecentKinds() throws InterruptedException {
+		PregeneratingMazeFactory factory = new PregeneratingMazeFactory(1, 2);
+		try {
+			Builder[] builders = { Builder.DFS, Builder.Kruskal, Builder.Eller };
+			for (Builder builder : builders) {
+				assertTrue(factory.order(new DefaultOrder(1, builder, true, factory.nextSeed(1, builder, true))));
+				factory.waitTillDelivered();
+				factory.waitTillPregenerated();
+			}
+			assertEquals(3, factory.getMissCount());
+			// DFS was dropped, its order is built by the other factory
+			DefaultOrder dropped = new DefaultOrder(1, Builder.DFS, true, factory.nextSeed(1, Builder.DFS, true));
+			assertTrue(factory.order(dropped));
+			factory.waitTillDelivered();
+			assertNotNull(dropped.getMaze());
+			assertEquals(4, factory.getMissCount());
+			assertEquals(0, factory.getHitCount());
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+	/**
+	 * Test case: See if speculative builds continue after a foreground build fails
+	 * <p>
+	 * Method under test: order(Order)
+	 * <p>
+	 * Correct behavior: an order whose build throws an exception ends the foreground work,
+	 * the speculative build for its kind runs and the next order with its seed is a hit
+	 */
+	@Test
+	public final void testFailedForegroundBuild() throws InterruptedException {
+		PregeneratingMazeFactory factory = new PregeneratingMazeFactory(1, 1);
+		try {
+			DefaultOrder failing = new DefaultOrder(1, Builder.DFS, true, factory.nextSeed(1, Builder.DFS, true)) {
+				@Override
+				public void updateProgress(int percentage) {
+					throw new IllegalStateException("failure in build");
+				}
+			};
+			assertTrue(factory.order(failing));
+			factory.waitTillDelivered();
+			// returns only if the speculative build did not wait for the failed order
+			factory.waitTillPregenerated();
+			DefaultOrder order = new DefaultOrder(1, Builder.DFS, true, factory.nextSeed(1, Builder.DFS, true));
+			assertTrue(factory.order(order));
+			assertNotNull(order.getMaze());
+			assertEquals(1, factory.getHitCount());
+		}
+		finally {
+			factory.shutdown();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+public class ProgressPublisherTest {
+
+	/**
+	 * An order that counts its progress updates
+	 */
+	private static class CountingOrder extends DefaultOrder {
+		int updates;
+
+		CountingOrder() {
+			super(0, Builder.DFS, true, 0);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			super.updateProgress(percentage);
+			updates++;
+		}
+	}
+	/**
+	 * Test case: See if progress is published at a bounded rate
+	 * <p>
+	 * Method under test: publish(int)
+	 * <p>
+	 * Correct behavior: the first value is published, larger values right after it are not,
+	 * 100 is always published, values that do not increase are never published,
+	 * a larger value is published again once the minimum interval has passed
+	 */
+	@Test
+	public final void testBoundedRate() throws InterruptedException {
+		CountingOrder order = new CountingOrder();
+		ProgressPublisher publisher = new ProgressPublisher(order);
+		assertTrue(publisher.publish(10));
+		// an immediate flood of updates is coalesced
+		for (int percentage = 11; percentage < 100; percentage++)
+			publisher.publish(percentage);
+		assertTrue(order.updates < 10); // a few may pass on a slow machine
+		Thread.sleep(2*ProgressPublisher.MIN_INTERVAL_NANOS / 1000000);
+		assertFalse(publisher.publish(5));
+		assertTrue(publisher.publish(99));
+		assertTrue(publisher.publish(100));
+		assertFalse(publisher.publish(100));
+		assertEquals(100, order.getProgress());
+	}
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 
 import generation.CardinalDirection;
 import generation.DefaultOrder;
+import generation.Floorplan;
 import generation.Maze;
 import generation.MazeFactory;
 import generation.Order.Builder;
@@ -75,7 +76,10 @@ public class ReliableSensorTest {
 	final void TestAtExitDistance() {
 		setUp();
 		testMaze = createMaze(0, Builder.DFS, true, 0);
-		testMaze.getFloorplan().setExitPosition(1, 0);
+		// delivered floorplans are immutable snapshots, so change a copy
+		Floorplan floorplan = testMaze.getFloorplan().copy();
+		floorplan.setExitPosition(1, 0);
+		testMaze.setFloorplan(floorplan);
 		int[] cords = {1,0};
 		float[] flt = {2};
 		try {